@@ -54,11 +54,19 @@ import java.util.concurrent.CompletionStage;
  *                      onResult -> fill-up data of *this* BatchIterator
  *
  * </pre>
+ *
+ * The batch size is queried from the accumulator for every batch, so an accumulator may adapt it.
+ *
+ * If created with {@code pipelined} set, the next batch is processed as soon as the current one has been loaded,
+ * so that an asynchronous operation (like a fetch request) overlaps with the consumption of the current batch.
+ * Only rows which the source has already loaded are used for this, the source itself is never advanced
+ * in the background. The accumulator must therefore not share any state between the result of one
+ * {@link BatchAccumulator#processBatch(boolean)} call and the items it receives afterwards.
  */
 public class AsyncOperationBatchIterator implements BatchIterator {
 
     private final BatchIterator source;
-    private final int batchSize;
+    private final boolean pipelined;
     private final BatchAccumulator<Row, Iterator<? extends Row>> batchAccumulator;
     private final RowColumns rowData;
     private final Row sourceRow;
@@ -67,13 +75,26 @@ public class AsyncOperationBatchIterator implements BatchIterator {
     private int idxWithinBatch = 0;
     private boolean sourceExhausted = false;
     private boolean closed = false;
+
+    /**
+     * the next batch which is processed in the background if pipelined; null if there is none
+     */
+    @Nullable
+    private CompletionStage<Iterator<? extends Row>> nextBatch = null;
     private volatile Throwable killed = null;
 
     public AsyncOperationBatchIterator(BatchIterator source,
                                        int numColumns,
                                        BatchAccumulator<Row, Iterator<? extends Row>> batchAccumulator) {
+        this(source, numColumns, batchAccumulator, false);
+    }
+
+    public AsyncOperationBatchIterator(BatchIterator source,
+                                       int numColumns,
+                                       BatchAccumulator<Row, Iterator<? extends Row>> batchAccumulator,
+                                       boolean pipelined) {
         this.source = source;
-        this.batchSize = batchAccumulator.batchSize();
+        this.pipelined = pipelined;
         this.batchAccumulator = batchAccumulator;
         this.it = Collections.emptyIterator();
 
@@ -93,6 +114,8 @@ public class AsyncOperationBatchIterator implements BatchIterator {
         source.moveToStart();
         batchAccumulator.reset();
         sourceExhausted = false;
+        nextBatch = null;
+        idxWithinBatch = 0;
         it = Collections.emptyIterator();
         rowData.updateRef(RowBridging.OFF_ROW);
     }
@@ -117,20 +140,31 @@ public class AsyncOperationBatchIterator implements BatchIterator {
     }
 
     private void concatRows(Iterator<? extends Row> rows) {
-        idxWithinBatch = 0;
         it = Iterators.concat(it, rows);
+        if (pipelined && !sourceExhausted) {
+            nextBatch = tryProcessBatchFromLoadedSource();
+            if (nextBatch == null && source.allLoaded()) {
+                nextBatch = processRemaining();
+            }
+        }
     }
 
     @Override
     public CompletionStage<?> loadNextBatch() {
-        if (sourceExhausted) {
+        if (allLoaded()) {
             return CompletableFutures.failedFuture(new IllegalStateException("BatchIterator already fully loaded"));
         }
-        return uncheckedLoadNextBatch();
+        CompletionStage<Iterator<? extends Row>> batch = nextBatch;
+        if (batch == null) {
+            batch = uncheckedLoadNextBatch();
+        } else {
+            nextBatch = null;
+        }
+        return batch.thenAccept(this::concatRows);
     }
 
-    private CompletionStage<?> uncheckedLoadNextBatch() {
-        CompletionStage<?> batchProcessResult = tryProcessBatchFromLoadedSource();
+    private CompletionStage<Iterator<? extends Row>> uncheckedLoadNextBatch() {
+        CompletionStage<Iterator<? extends Row>> batchProcessResult = tryProcessBatchFromLoadedSource();
         if (batchProcessResult == null) {
             if (source.allLoaded()) {
                 return processRemaining();
@@ -141,18 +175,19 @@ public class AsyncOperationBatchIterator implements BatchIterator {
     }
 
 
-    private CompletionStage<?> processRemaining() {
+    private CompletionStage<Iterator<? extends Row>> processRemaining() {
         sourceExhausted = true;
         return processBatch(true);
     }
 
     @Nullable
-    private CompletionStage<?> tryProcessBatchFromLoadedSource() {
+    private CompletionStage<Iterator<? extends Row>> tryProcessBatchFromLoadedSource() {
         try {
+            int batchSize = batchAccumulator.batchSize();
             while (source.moveNext()) {
                 idxWithinBatch++;
                 batchAccumulator.onItem(sourceRow);
-                if (batchSize > 0 && idxWithinBatch == batchSize) {
+                if (batchSize > 0 && idxWithinBatch >= batchSize) {
                     return processBatch(false);
                 }
             }
@@ -162,10 +197,10 @@ public class AsyncOperationBatchIterator implements BatchIterator {
         return null;
     }
 
-    private CompletionStage<?> processBatch(boolean isLastBatch) {
+    private CompletionStage<Iterator<? extends Row>> processBatch(boolean isLastBatch) {
+        idxWithinBatch = 0;
         return batchAccumulator.processBatch(isLastBatch)
-            .exceptionally(this::maybeRaiseKilled)
-            .thenAccept(this::concatRows);
+            .exceptionally(this::maybeRaiseKilled);
     }
 
     private Iterator<? extends Row> maybeRaiseKilled(Throwable throwable) {
@@ -179,7 +214,7 @@ public class AsyncOperationBatchIterator implements BatchIterator {
 
     @Override
     public boolean allLoaded() {
-        return sourceExhausted;
+        return sourceExhausted && nextBatch == null;
     }
 
     private void raiseIfClosedOrKilled() {
@@ -31,9 +31,13 @@ import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
 public class AsyncOperationBatchIteratorTest {
 
     @Test
@@ -46,12 +50,38 @@ public class AsyncOperationBatchIteratorTest {
         runTest(() -> new BatchSimulatingIterator(TestingBatchIterators.range(0, 10), 3, 4, null));
     }
 
+    @Test
+    public void testPipelinedAsyncOperationBatchIterator() throws Exception {
+        runTest(() -> TestingBatchIterators.range(0, 10), true);
+    }
+
+    @Test
+    public void testPipelinedAsyncOperationBatchIteratorWithBatchedSource() throws Exception {
+        runTest(() -> new BatchSimulatingIterator(TestingBatchIterators.range(0, 10), 3, 4, null), true);
+    }
+
+    @Test
+    public void testPipelinedIteratorProcessesNextBatchWhileCurrentBatchIsConsumed() throws Exception {
+        BatchIterator source = TestingBatchIterators.range(0, 10);
+        DummyBatchAccumulator accumulator = new DummyBatchAccumulator(source.rowData().get(0));
+        BatchIterator it = new AsyncOperationBatchIterator(source, 1, accumulator, true);
+
+        it.loadNextBatch().toCompletableFuture().get(10, TimeUnit.SECONDS);
+        assertThat(accumulator.numProcessedBatches, is(2));
+        assertThat(it.moveNext(), is(true));
+        assertThat(it.rowData().get(0).value(), is((Object) 0));
+    }
+
     private void runTest(Supplier<BatchIterator> sourceSupplier) throws Exception {
+        runTest(sourceSupplier, false);
+    }
+
+    private void runTest(Supplier<BatchIterator> sourceSupplier, boolean pipelined) throws Exception {
         Supplier<BatchIterator> biSupplier = () -> {
             BatchIterator source = sourceSupplier.get();
             Input<?> input = source.rowData().get(0);
             BatchAccumulator<Row, Iterator<? extends Row>> accumulator = new DummyBatchAccumulator(input);
-            return new AsyncOperationBatchIterator(source, 1, accumulator);
+            return new AsyncOperationBatchIterator(source, 1, accumulator, pipelined);
         };
 
         List<Object[]> expectedResult = new ArrayList<>();
@@ -66,6 +96,7 @@ public class AsyncOperationBatchIteratorTest {
 
         private final Input<?> input;
         private final List<Integer> items = new ArrayList<>();
+        private int numProcessedBatches = 0;
 
         DummyBatchAccumulator(Input<?> input) {
             this.input = input;
@@ -83,11 +114,10 @@ public class AsyncOperationBatchIteratorTest {
 
         @Override
         public CompletableFuture<Iterator<? extends Row>> processBatch(boolean isLastBatch) {
-            return CompletableFuture.supplyAsync(() -> {
-                List<Row1> rows = items.stream().map(Row1::new).collect(Collectors.toList());
-                items.clear();
-                return rows.iterator();
-            });
+            numProcessedBatches++;
+            List<Row1> rows = items.stream().map(Row1::new).collect(Collectors.toList());
+            items.clear();
+            return CompletableFuture.supplyAsync(rows::iterator);
         }
 
         @Override
@@ -26,6 +26,7 @@ import org.elasticsearch.client.Client;
 import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
 import org.elasticsearch.common.network.NetworkService;
+import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.http.HttpServerTransport;
@@ -39,6 +40,7 @@ import org.elasticsearch.watcher.ResourceWatcherService;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.function.Supplier;
 
@@ -75,6 +77,11 @@ public class HttpTransportPlugin extends Plugin implements NetworkPlugin {
         return Collections.singletonList(pipelineRegistry);
     }
 
+    @Override
+    public List<Setting<?>> getSettings() {
+        return Collections.singletonList(CrateNettyHttpServerTransport.SETTING_HTTP_COMPRESSION_MIN_SIZE);
+    }
+
     @Override
     public Settings additionalSettings() {
         return Settings.builder()
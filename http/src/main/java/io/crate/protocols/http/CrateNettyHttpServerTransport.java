@@ -27,7 +27,10 @@ import io.netty.channel.Channel;
 import io.netty.channel.ChannelPipeline;
 import org.elasticsearch.common.network.InetAddresses;
 import org.elasticsearch.common.network.NetworkService;
+import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.http.netty4.Netty4HttpServerTransport;
 import org.elasticsearch.threadpool.ThreadPool;
@@ -35,10 +38,24 @@ import org.elasticsearch.threadpool.ThreadPool;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
 
+import static org.elasticsearch.http.HttpTransportSettings.SETTING_HTTP_COMPRESSION_LEVEL;
+
 
 public class CrateNettyHttpServerTransport extends Netty4HttpServerTransport {
 
+    /**
+     * Responses smaller than this are sent uncompressed even if compression is enabled by {@code http.compression}
+     */
+    public static final Setting<ByteSizeValue> SETTING_HTTP_COMPRESSION_MIN_SIZE = Setting.byteSizeSetting(
+        "http.compression_min_size",
+        new ByteSizeValue(1, ByteSizeUnit.KB),
+        Setting.Property.NodeScope);
+
+    private static final String COMPRESSOR_HANDLER_NAME = "encoder_compress";
+
     private final PipelineRegistry pipelineRegistry;
+    private final int compressionLevel;
+    private final int compressionMinSize;
 
     public CrateNettyHttpServerTransport(Settings settings,
                                          NetworkService networkService,
@@ -47,6 +64,8 @@ public class CrateNettyHttpServerTransport extends Netty4HttpServerTransport {
                                          PipelineRegistry pipelineRegistry) {
         super(settings, networkService, bigArrays, threadPool);
         this.pipelineRegistry = pipelineRegistry;
+        this.compressionLevel = SETTING_HTTP_COMPRESSION_LEVEL.get(settings);
+        this.compressionMinSize = Math.toIntExact(SETTING_HTTP_COMPRESSION_MIN_SIZE.get(settings).getBytes());
     }
 
     @Override
@@ -66,6 +85,10 @@ public class CrateNettyHttpServerTransport extends Netty4HttpServerTransport {
         protected void initChannel(Channel ch) throws Exception {
             super.initChannel(ch);
             ChannelPipeline pipeline = ch.pipeline();
+            if (pipeline.get(COMPRESSOR_HANDLER_NAME) != null) {
+                pipeline.replace(COMPRESSOR_HANDLER_NAME, COMPRESSOR_HANDLER_NAME,
+                    new MinSizeHttpContentCompressor(compressionLevel, compressionMinSize));
+            }
             pipelineRegistry.registerItems(pipeline);
         }
     }
@@ -0,0 +1,67 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.protocols.http;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class MinSizeHttpContentCompressorTest {
+
+    private static HttpResponse sendResponse(int contentLength) {
+        EmbeddedChannel channel = new EmbeddedChannel(new MinSizeHttpContentCompressor(6, 1024));
+        FullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/_sql");
+        request.headers().set(HttpHeaderNames.ACCEPT_ENCODING, "gzip");
+        channel.writeInbound(request);
+
+        channel.writeOutbound(new DefaultFullHttpResponse(
+            HttpVersion.HTTP_1_1, HttpResponseStatus.OK, Unpooled.wrappedBuffer(new byte[contentLength])));
+        HttpResponse response = channel.readOutbound();
+        channel.finishAndReleaseAll();
+        return response;
+    }
+
+    @Test
+    public void testSmallResponseIsNotCompressed() throws Exception {
+        HttpResponse response = sendResponse(100);
+        assertThat(response.headers().get(HttpHeaderNames.CONTENT_ENCODING), nullValue());
+    }
+
+    @Test
+    public void testLargeResponseIsCompressed() throws Exception {
+        HttpResponse response = sendResponse(2048);
+        assertThat(response.headers().get(HttpHeaderNames.CONTENT_ENCODING), is("gzip"));
+    }
+}
@@ -23,8 +23,12 @@
 package io.crate.concurrent;
 
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 public final class CompletableFutures {
@@ -48,4 +52,83 @@ public final class CompletableFutures {
                 .map(CompletableFuture::join)
                 .collect(Collectors.toList()));
     }
+
+    /**
+     * Runs the tasks provided by the iterator, but never more than {@code maxConcurrent} at the same time.
+     * A new task is started as soon as the future of a running task completes.
+     *
+     * No new tasks are started after a task failed. The returned future completes once all started tasks
+     * have completed; exceptionally with the first failure if there was any.
+     */
+    public static CompletableFuture<Void> runWithBoundedConcurrency(
+        Iterator<? extends Supplier<? extends CompletableFuture<?>>> tasks, int maxConcurrent) {
+
+        if (maxConcurrent < 1) {
+            throw new IllegalArgumentException("maxConcurrent must be greater than 0");
+        }
+        BoundedConcurrencyRunner runner = new BoundedConcurrencyRunner(tasks, maxConcurrent);
+        for (int i = 0; i < maxConcurrent; i++) {
+            runner.runNext();
+        }
+        return runner.result;
+    }
+
+    private static class BoundedConcurrencyRunner {
+
+        private final Iterator<? extends Supplier<? extends CompletableFuture<?>>> tasks;
+        private final AtomicInteger activeWorkers;
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+        private final CompletableFuture<Void> result = new CompletableFuture<>();
+
+        BoundedConcurrencyRunner(Iterator<? extends Supplier<? extends CompletableFuture<?>>> tasks, int numWorkers) {
+            this.tasks = tasks;
+            this.activeWorkers = new AtomicInteger(numWorkers);
+        }
+
+        void runNext() {
+            while (true) {
+                Supplier<? extends CompletableFuture<?>> task;
+                synchronized (tasks) {
+                    task = failure.get() == null && tasks.hasNext() ? tasks.next() : null;
+                }
+                if (task == null) {
+                    finishWorker();
+                    return;
+                }
+                CompletableFuture<?> future;
+                try {
+                    future = task.get();
+                } catch (Throwable t) {
+                    future = failedFuture(t);
+                }
+                if (future.isDone()) {
+                    // avoid deep recursion if tasks complete synchronously
+                    future.whenComplete((r, t) -> onTaskCompleted(t));
+                } else {
+                    future.whenComplete((r, t) -> {
+                        onTaskCompleted(t);
+                        runNext();
+                    });
+                    return;
+                }
+            }
+        }
+
+        private void onTaskCompleted(Throwable t) {
+            if (t != null) {
+                failure.compareAndSet(null, t);
+            }
+        }
+
+        private void finishWorker() {
+            if (activeWorkers.decrementAndGet() == 0) {
+                Throwable t = failure.get();
+                if (t == null) {
+                    result.complete(null);
+                } else {
+                    result.completeExceptionally(t);
+                }
+            }
+        }
+    }
 }
@@ -27,10 +27,13 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 import static org.junit.Assert.assertThat;
 
@@ -71,4 +74,44 @@ public class CompletableFuturesTest {
 
         assertThat(all.get(10, TimeUnit.SECONDS), Matchers.contains(10, 20));
     }
+
+    @Test
+    public void testRunWithBoundedConcurrencyLimitsRunningTasks() throws Exception {
+        AtomicInteger startedTasks = new AtomicInteger(0);
+        List<CompletableFuture<Integer>> taskFutures = new ArrayList<>();
+        List<Supplier<CompletableFuture<Integer>>> tasks = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            CompletableFuture<Integer> taskFuture = new CompletableFuture<>();
+            taskFutures.add(taskFuture);
+            tasks.add(() -> {
+                startedTasks.incrementAndGet();
+                return taskFuture;
+            });
+        }
+        CompletableFuture<Void> result = CompletableFutures.runWithBoundedConcurrency(tasks.iterator(), 2);
+        assertThat(startedTasks.get(), Matchers.is(2));
+
+        taskFutures.get(0).complete(0);
+        assertThat("completing a task must start the next one", startedTasks.get(), Matchers.is(3));
+
+        for (int i = 1; i < 5; i++) {
+            taskFutures.get(i).complete(i);
+        }
+        assertThat(startedTasks.get(), Matchers.is(5));
+        result.get(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testRunWithBoundedConcurrencyStopsAfterFailure() throws Exception {
+        List<Supplier<CompletableFuture<Integer>>> tasks = new ArrayList<>();
+        tasks.add(() -> CompletableFuture.completedFuture(1));
+        tasks.add(() -> CompletableFutures.failedFuture(new IllegalStateException("dummy")));
+        tasks.add(() -> {
+            throw new AssertionError("task must not be started after a failure");
+        });
+        CompletableFuture<Void> result = CompletableFutures.runWithBoundedConcurrency(tasks.iterator(), 1);
+
+        expectedException.expectCause(Matchers.instanceOf(IllegalStateException.class));
+        result.get(10, TimeUnit.SECONDS);
+    }
 }
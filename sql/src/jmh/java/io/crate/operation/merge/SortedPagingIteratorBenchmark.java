@@ -44,6 +44,7 @@ public class SortedPagingIteratorBenchmark {
     private List<Row> unsortedFirst;
     private List<Row> sortedFirst;
     private List<Row> sortedSecond;
+    private List<KeyIterable<Integer, Row>> sortedBuckets;
 
     @Setup
     public void prepareData() {
@@ -60,6 +61,20 @@ public class SortedPagingIteratorBenchmark {
 
         sortedSecond = new ArrayList<>(unsortedSecond);
         sortedSecond.sort(compareOnFirstColumn);
+
+        // sortedFirst split into 100 sorted buckets, like the results of a query on 100 shards
+        int numBuckets = 100;
+        List<List<Row>> buckets = new ArrayList<>(numBuckets);
+        for (int i = 0; i < numBuckets; i++) {
+            buckets.add(new ArrayList<>());
+        }
+        for (int i = 0; i < sortedFirst.size(); i++) {
+            buckets.get(i % numBuckets).add(sortedFirst.get(i));
+        }
+        sortedBuckets = new ArrayList<>(numBuckets);
+        for (int i = 0; i < numBuckets; i++) {
+            sortedBuckets.add(new KeyIterable<>(i, buckets.get(i)));
+        }
     }
 
     @Benchmark
@@ -84,6 +99,17 @@ public class SortedPagingIteratorBenchmark {
         }
     }
 
+    @Benchmark
+    public void measurePagingIteratorWithManyBuckets(Blackhole blackhole) {
+        SortedPagingIterator<Integer, Row> pagingIterator = new SortedPagingIterator<>(compareOnFirstColumn, false);
+        pagingIterator.merge(sortedBuckets);
+        pagingIterator.finish();
+
+        while (pagingIterator.hasNext()) {
+            blackhole.consume(pagingIterator.next());
+        }
+    }
+
     @Benchmark
     public void measurePagingIteratorWithSort(Blackhole blackhole) throws Exception {
         unsortedFirst.sort(compareOnFirstColumn);
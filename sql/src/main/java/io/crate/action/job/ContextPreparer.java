@@ -101,6 +101,7 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.function.Predicate;
 
 @Singleton
@@ -116,6 +117,8 @@ public class ContextPreparer extends AbstractComponent {
     private final InnerPreparer innerPreparer;
     private final InputFactory inputFactory;
     private final ProjectorFactory projectorFactory;
+    @Nullable
+    private final Executor prefetchExecutor;
 
     @Inject
     public ContextPreparer(Settings settings,
@@ -133,6 +136,9 @@ public class ContextPreparer extends AbstractComponent {
         super(settings);
         nlContextLogger = Loggers.getLogger(NestedLoopContext.class, settings);
         pageDownstreamContextLogger = Loggers.getLogger(PageDownstreamContext.class, settings);
+        prefetchExecutor = PageDownstreamContext.PREFETCH_SETTING.setting().get(settings)
+            ? threadPool.executor(ThreadPool.Names.SEARCH)
+            : null;
         this.collectOperation = collectOperation;
         this.clusterService = clusterService;
         this.countOperation = countOperation;
@@ -558,7 +564,8 @@ public class ContextPreparer extends AbstractComponent {
                         RamAccountingContext.forExecutionPhase(circuitBreaker, phase))),
                 DataTypes.getStreamers(phase.inputTypes()),
                 ramAccountingContext,
-                phase.numUpstreams()
+                phase.numUpstreams(),
+                prefetchExecutor
             ));
             return true;
         }
@@ -695,7 +702,8 @@ public class ContextPreparer extends AbstractComponent {
                         RamAccountingContext.forExecutionPhase(circuitBreaker, mergePhase))),
                 StreamerVisitor.streamersFromOutputs(mergePhase),
                 ramAccountingContext,
-                mergePhase.numUpstreams()
+                mergePhase.numUpstreams(),
+                prefetchExecutor
             );
         }
     }
@@ -66,6 +66,9 @@ class CopyAnalyzer {
     private static final StringSetting OUTPUT_FORMAT_SETTINGS =
         new StringSetting("format", ImmutableSet.of("json_object", "json_array"));
 
+    private static final StringSetting INPUT_FORMAT_SETTINGS =
+        new StringSetting("format", ImmutableSet.of("json", "csv"));
+
     private static final ImmutableMap<String, SettingsApplier> SETTINGS_APPLIERS =
         ImmutableMap.<String, SettingsApplier>builder()
             .put(COMPRESSION_SETTINGS.name(), new SettingsAppliers.StringSettingsApplier(COMPRESSION_SETTINGS))
@@ -110,6 +113,13 @@ class CopyAnalyzer {
             Map<String, Expression> properties = new HashMap<>(node.genericProperties().get().properties());
             nodeFilters = discoveryNodePredicate(analysis.parameterContext().parameters(), properties.remove(NodeFilters.NAME));
             settings = settingsFromProperties(properties, expressionAnalyzer, expressionAnalysisContext);
+            String inputFormat = settings.get(INPUT_FORMAT_SETTINGS.name());
+            if (inputFormat != null) {
+                String validation = INPUT_FORMAT_SETTINGS.validate(inputFormat);
+                if (validation != null) {
+                    throw new IllegalArgumentException(validation);
+                }
+            }
         }
         Symbol uri = expressionAnalyzer.convert(node.path(), expressionAnalysisContext);
         uri = normalizer.normalize(uri, analysis.transactionContext());
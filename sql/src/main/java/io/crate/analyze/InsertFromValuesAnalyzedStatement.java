@@ -95,14 +95,20 @@ public class InsertFromValuesAnalyzedStatement extends AbstractInsertAnalyzedSta
 
     public List<String> generatePartitions() {
         List<String> partitionValues = new ArrayList<>(partitionMaps.size());
+        List<String> columnNames = partitionedByColumnNames();
+        // rows of a multi-row insert usually share few partitions, so the index names are only encoded once
+        Map<List<BytesRef>, String> indexNames = new HashMap<>();
         for (Map<String, String> map : partitionMaps) {
             List<BytesRef> values = new ArrayList<>(map.size());
-            List<String> columnNames = partitionedByColumnNames();
             for (String columnName : columnNames) {
                 values.add(BytesRefs.toBytesRef(map.get(columnName)));
             }
-            PartitionName partitionName = new PartitionName(tableInfo().ident(), values);
-            partitionValues.add(partitionName.asIndexName());
+            String indexName = indexNames.get(values);
+            if (indexName == null) {
+                indexName = new PartitionName(tableInfo().ident(), values).asIndexName();
+                indexNames.put(values, indexName);
+            }
+            partitionValues.add(indexName);
         }
         return partitionValues;
     }
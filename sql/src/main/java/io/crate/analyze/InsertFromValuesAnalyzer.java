@@ -38,6 +38,7 @@ import io.crate.executor.transport.TransportShardUpsertAction;
 import io.crate.metadata.*;
 import io.crate.metadata.doc.DocTableInfo;
 import io.crate.metadata.table.Operation;
+import io.crate.operation.InputFactory;
 import io.crate.sql.tree.*;
 import io.crate.types.DataType;
 import org.apache.lucene.util.BytesRef;
@@ -128,6 +129,13 @@ class InsertFromValuesAnalyzer extends AbstractInsertAnalyzer {
             null,
             tableRelation);
         analyzeColumns(statement.tableInfo(), statement.columns());
+        // compiled once and used for all rows
+        Function<List<BytesRef>, String> idFunction =
+            Id.compileWithNullValidation(tableInfo.primaryKey(), tableInfo.clusteredBy());
+        List<Input<?>> generatedColumnInputs = compileGeneratedExpressions(
+            tableInfo, normalizer, analysis.transactionContext(), refToLiteral);
+        Reference[] onDupKeyColumns = resolveOnDuplicateKeyColumns(
+            tableRelation, expressionAnalyzer, expressionAnalysisContext, node.onDuplicateKeyAssignments());
         for (ValuesList valuesList : node.valuesLists()) {
             analyzeValues(
                 tableRelation,
@@ -140,13 +148,67 @@ class InsertFromValuesAnalyzer extends AbstractInsertAnalyzer {
                 valuesAwareExpressionAnalyzer,
                 valuesList,
                 node.onDuplicateKeyAssignments(),
+                onDupKeyColumns,
                 statement,
                 analysis.parameterContext(),
-                refToLiteral);
+                refToLiteral,
+                generatedColumnInputs,
+                idFunction);
         }
         return statement;
     }
 
+    /**
+     * Normalizes and compiles the generated expressions once, so that rows don't have to copy and normalize the
+     * expressions. An entry is null if the expression contains a non-deterministic function and must be normalized
+     * per row.
+     */
+    private List<Input<?>> compileGeneratedExpressions(DocTableInfo tableInfo,
+                                                       EvaluatingNormalizer normalizer,
+                                                       TransactionContext transactionContext,
+                                                       ReferenceToLiteralConverter refToLiteral) {
+        List<GeneratedReference> generatedColumns = tableInfo.generatedColumns();
+        if (generatedColumns.isEmpty()) {
+            return Collections.emptyList();
+        }
+        InputFactory.Context<Input<?>> ctx = new InputFactory(functions).ctxForRefs(refToLiteral::valueInput);
+        List<Input<?>> inputs = new ArrayList<>(generatedColumns.size());
+        for (GeneratedReference reference : generatedColumns) {
+            Symbol expression = normalizer.normalize(reference.generatedExpression(), transactionContext);
+            if (SymbolVisitors.any(InsertFromValuesAnalyzer::isNotCompilable, expression)) {
+                inputs.add(null);
+            } else {
+                inputs.add(ctx.add(expression));
+            }
+        }
+        return inputs;
+    }
+
+    private static boolean isNotCompilable(Symbol symbol) {
+        if (symbol instanceof io.crate.analyze.symbol.Function) {
+            return !((io.crate.analyze.symbol.Function) symbol).info().features().contains(FunctionInfo.Feature.DETERMINISTIC);
+        }
+        return !(symbol instanceof Reference || symbol instanceof Literal);
+    }
+
+    private Reference[] resolveOnDuplicateKeyColumns(DocTableRelation tableRelation,
+                                                     ExpressionAnalyzer expressionAnalyzer,
+                                                     ExpressionAnalysisContext expressionAnalysisContext,
+                                                     List<Assignment> assignments) {
+        Reference[] columns = new Reference[assignments.size()];
+        if (columns.length == 0) {
+            return columns;
+        }
+        expressionAnalyzer.setResolveFieldsOperation(Operation.UPDATE);
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = tableRelation.resolveField(
+                (Field) expressionAnalyzer.convert(assignments.get(i).columnName(), expressionAnalysisContext));
+            assert columns[i] != null : "columnName must not be null";
+        }
+        expressionAnalyzer.setResolveFieldsOperation(Operation.INSERT);
+        return columns;
+    }
+
     private void analyzeColumns(DocTableInfo tableInfo, List<Reference> columns) {
         Collection<ColumnIdent> notUsedNonGeneratedColumns = TransportShardUpsertAction.getNotUsedNonGeneratedColumns(columns.toArray(new Reference[]{}), tableInfo);
         ConstraintsValidator.validateConstraintsForNotUsedColumns(notUsedNonGeneratedColumns, tableInfo);
@@ -187,16 +249,16 @@ class InsertFromValuesAnalyzer extends AbstractInsertAnalyzer {
                                ExpressionAnalyzer valuesAwareExpressionAnalyzer,
                                ValuesList node,
                                List<Assignment> assignments,
+                               Reference[] onDupKeyColumns,
                                InsertFromValuesAnalyzedStatement statement,
                                ParameterContext parameterContext,
-                               ReferenceToLiteralConverter refToLiteral) {
+                               ReferenceToLiteralConverter refToLiteral,
+                               List<Input<?>> generatedColumnInputs,
+                               Function<List<BytesRef>, String> idFunction) {
         validateValuesSize(node.values(), statement, tableRelation);
 
         try {
-            DocTableInfo tableInfo = statement.tableInfo();
-            int numPks = tableInfo.primaryKey().size();
-            Function<List<BytesRef>, String> idFunction =
-                Id.compileWithNullValidation(tableInfo.primaryKey(), tableInfo.clusteredBy());
+            int numPks = statement.tableInfo().primaryKey().size();
             if (parameterContext.numBulkParams() > 0) {
                 for (int i = 0; i < parameterContext.numBulkParams(); i++) {
                     parameterContext.setBulkIdx(i);
@@ -211,8 +273,10 @@ class InsertFromValuesAnalyzer extends AbstractInsertAnalyzer {
                         valuesAwareExpressionAnalyzer,
                         node,
                         assignments,
+                        onDupKeyColumns,
                         statement,
                         refToLiteral,
+                        generatedColumnInputs,
                         numPks,
                         idFunction,
                         i
@@ -230,8 +294,10 @@ class InsertFromValuesAnalyzer extends AbstractInsertAnalyzer {
                     valuesAwareExpressionAnalyzer,
                     node,
                     assignments,
+                    onDupKeyColumns,
                     statement,
                     refToLiteral,
+                    generatedColumnInputs,
                     numPks,
                     idFunction,
                     -1
@@ -252,8 +318,10 @@ class InsertFromValuesAnalyzer extends AbstractInsertAnalyzer {
                            ExpressionAnalyzer valuesAwareExpressionAnalyzer,
                            ValuesList node,
                            List<Assignment> assignments,
+                           Reference[] onDupKeyColumns,
                            InsertFromValuesAnalyzedStatement context,
                            ReferenceToLiteralConverter refToLiteral,
+                           List<Input<?>> generatedColumnInputs,
                            int numPrimaryKeys,
                            Function<List<BytesRef>, String> idFunction,
                            int bulkIdx) throws IOException {
@@ -324,12 +392,9 @@ class InsertFromValuesAnalyzer extends AbstractInsertAnalyzer {
             valuesResolver.columns = context.columns();
             Symbol[] onDupKeyAssignments = new Symbol[assignments.size()];
             valuesResolver.assignmentColumns = new ArrayList<>(assignments.size());
-            expressionAnalyzer.setResolveFieldsOperation(Operation.UPDATE);
             for (int i = 0; i < assignments.size(); i++) {
                 Assignment assignment = assignments.get(i);
-                Reference columnName = tableRelation.resolveField(
-                    (Field) expressionAnalyzer.convert(assignment.columnName(), expressionAnalysisContext));
-                assert columnName != null : "columnName must not be null";
+                Reference columnName = onDupKeyColumns[i];
 
                 Symbol valueSymbol = normalizer.normalize(
                     valuesAwareExpressionAnalyzer.convert(assignment.expression(), expressionAnalysisContext),
@@ -354,6 +419,7 @@ class InsertFromValuesAnalyzer extends AbstractInsertAnalyzer {
             normalizer,
             transactionContext,
             refToLiteral,
+            generatedColumnInputs,
             primaryKeyValues,
             insertValues,
             routingValue);
@@ -432,6 +498,7 @@ class InsertFromValuesAnalyzer extends AbstractInsertAnalyzer {
         private final DocTableRelation tableRelation;
         private final InsertFromValuesAnalyzedStatement analyzedStatement;
         private final ReferenceToLiteralConverter refToLiteral;
+        private final List<Input<?>> generatedColumnInputs;
         private final TransactionContext transactionContext;
         private final BytesRef[] primaryKeyValues;
         private final EvaluatingNormalizer normalizer;
@@ -446,6 +513,7 @@ class InsertFromValuesAnalyzer extends AbstractInsertAnalyzer {
                                            EvaluatingNormalizer normalizer,
                                            TransactionContext transactionContext,
                                            ReferenceToLiteralConverter refToLiteral,
+                                           List<Input<?>> generatedColumnInputs,
                                            BytesRef[] primaryKeyValues,
                                            Object[] insertValues,
                                            @Nullable String routingValue) {
@@ -456,6 +524,7 @@ class InsertFromValuesAnalyzer extends AbstractInsertAnalyzer {
             this.insertValues = insertValues;
             this.routingValue = routingValue;
             this.refToLiteral = refToLiteral;
+            this.generatedColumnInputs = generatedColumnInputs;
             this.normalizer = normalizer;
             refToLiteral.values(insertValues);
         }
@@ -463,27 +532,36 @@ class InsertFromValuesAnalyzer extends AbstractInsertAnalyzer {
 
     private void processGeneratedExpressions(GeneratedExpressionContext context) {
         List<ColumnIdent> primaryKey = context.analyzedStatement.tableInfo().primaryKey();
-        for (GeneratedReference reference : context.tableRelation.tableInfo().generatedColumns()) {
-            Symbol valueSymbol = RefReplacer.replaceRefs(reference.generatedExpression(), context.refToLiteral);
-            valueSymbol = context.normalizer.normalize(valueSymbol, context.transactionContext);
-            if (valueSymbol.symbolType() == SymbolType.LITERAL) {
-                Object value = ((Input) valueSymbol).value();
-                if (primaryKey.contains(reference.ident().columnIdent()) &&
-                    context.analyzedStatement.columns().indexOf(reference) == -1) {
-                    int idx = primaryKey.indexOf(reference.ident().columnIdent());
-                    addPrimaryKeyValue(idx, value, context.primaryKeyValues);
-                }
-                ColumnIdent routingColumn = context.analyzedStatement.tableInfo().clusteredBy();
-                if (routingColumn != null && routingColumn.equals(reference.ident().columnIdent())) {
-                    context.routingValue = extractRoutingValue(routingColumn, value, context.analyzedStatement);
-                }
-                if (context.tableRelation.tableInfo().isPartitioned()
-                    && context.tableRelation.tableInfo().partitionedByColumns().contains(reference)) {
-                    addGeneratedPartitionedColumnValue(reference.ident().columnIdent(), value,
-                        context.analyzedStatement.currentPartitionMap());
-                } else {
-                    context.insertValues = addGeneratedColumnValue(context.analyzedStatement, reference, value, context.insertValues);
+        List<GeneratedReference> generatedColumns = context.tableRelation.tableInfo().generatedColumns();
+        for (int i = 0; i < generatedColumns.size(); i++) {
+            GeneratedReference reference = generatedColumns.get(i);
+            Input<?> input = context.generatedColumnInputs.get(i);
+            Object value;
+            if (input == null) {
+                Symbol valueSymbol = RefReplacer.replaceRefs(reference.generatedExpression(), context.refToLiteral);
+                valueSymbol = context.normalizer.normalize(valueSymbol, context.transactionContext);
+                if (valueSymbol.symbolType() != SymbolType.LITERAL) {
+                    continue;
                 }
+                value = ((Input) valueSymbol).value();
+            } else {
+                value = input.value();
+            }
+            if (primaryKey.contains(reference.ident().columnIdent()) &&
+                context.analyzedStatement.columns().indexOf(reference) == -1) {
+                int idx = primaryKey.indexOf(reference.ident().columnIdent());
+                addPrimaryKeyValue(idx, value, context.primaryKeyValues);
+            }
+            ColumnIdent routingColumn = context.analyzedStatement.tableInfo().clusteredBy();
+            if (routingColumn != null && routingColumn.equals(reference.ident().columnIdent())) {
+                context.routingValue = extractRoutingValue(routingColumn, value, context.analyzedStatement);
+            }
+            if (context.tableRelation.tableInfo().isPartitioned()
+                && context.tableRelation.tableInfo().partitionedByColumns().contains(reference)) {
+                addGeneratedPartitionedColumnValue(reference.ident().columnIdent(), value,
+                    context.analyzedStatement.currentPartitionMap());
+            } else {
+                context.insertValues = addGeneratedColumnValue(context.analyzedStatement, reference, value, context.insertValues);
             }
         }
     }
@@ -23,6 +23,7 @@ package io.crate.executor.transport;
 
 import org.elasticsearch.transport.TransportRequest;
 import org.elasticsearch.transport.TransportResponse;
+import org.elasticsearch.transport.TransportResponseOptions;
 
 import java.util.concurrent.CompletableFuture;
 
@@ -30,4 +31,11 @@ import java.util.concurrent.CompletableFuture;
 public interface NodeAction<TRequest extends TransportRequest, TResponse extends TransportResponse> {
 
     CompletableFuture<TResponse> nodeOperation(TRequest request);
+
+    /**
+     * @return the options used to send the response of the given request
+     */
+    default TransportResponseOptions responseOptions(TRequest request, TResponse response) {
+        return TransportResponseOptions.EMPTY;
+    }
 }
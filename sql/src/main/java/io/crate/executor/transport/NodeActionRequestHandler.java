@@ -46,7 +46,7 @@ public final class NodeActionRequestHandler<TRequest extends TransportRequest, T
         nodeAction.nodeOperation(request).whenComplete((result, throwable) -> {
             if (throwable == null) {
                 try {
-                    channel.sendResponse(result);
+                    channel.sendResponse(result, nodeAction.responseOptions(request, result));
                 } catch (IOException e) {
                     LOGGER.error("Error sending response: " + e.getMessage(), e);
                 }
@@ -37,9 +37,15 @@ import java.util.UUID;
 
 public class NodeFetchRequest extends TransportRequest {
 
+    /**
+     * compression threshold indicating that the response must not be compressed
+     */
+    public static final long NO_COMPRESSION = -1L;
+
     private UUID jobId;
     private int fetchPhaseId;
     private boolean closeContext;
+    private long compressionThreshold = NO_COMPRESSION;
 
     @Nullable
     private IntObjectMap<? extends IntContainer> toFetch;
@@ -51,7 +57,20 @@ public class NodeFetchRequest extends TransportRequest {
                             int fetchPhaseId,
                             boolean closeContext,
                             IntObjectMap<? extends IntContainer> toFetch) {
+        this(jobId, fetchPhaseId, closeContext, toFetch, NO_COMPRESSION);
+    }
+
+    /**
+     * @param compressionThreshold the size in bytes of the fetched rows from which on the response is compressed,
+     *                             or {@link #NO_COMPRESSION}
+     */
+    public NodeFetchRequest(UUID jobId,
+                            int fetchPhaseId,
+                            boolean closeContext,
+                            IntObjectMap<? extends IntContainer> toFetch,
+                            long compressionThreshold) {
         this.jobId = jobId;
+        this.compressionThreshold = compressionThreshold;
         this.fetchPhaseId = fetchPhaseId;
         this.closeContext = closeContext;
         if (!toFetch.isEmpty()) {
@@ -76,12 +95,19 @@ public class NodeFetchRequest extends TransportRequest {
         return toFetch;
     }
 
+    public long compressionThreshold() {
+        return compressionThreshold;
+    }
+
     @Override
     public void readFrom(StreamInput in) throws IOException {
         super.readFrom(in);
         jobId = new UUID(in.readLong(), in.readLong());
         fetchPhaseId = in.readVInt();
         closeContext = in.readBoolean();
+        if (in.readBoolean()) {
+            compressionThreshold = in.readVLong();
+        }
         int numReaders = in.readVInt();
         if (numReaders > 0) {
             IntObjectHashMap<IntArrayList> toFetch = new IntObjectHashMap<>(numReaders);
@@ -105,6 +131,12 @@ public class NodeFetchRequest extends TransportRequest {
         out.writeLong(jobId.getLeastSignificantBits());
         out.writeVInt(fetchPhaseId);
         out.writeBoolean(closeContext);
+        if (compressionThreshold == NO_COMPRESSION) {
+            out.writeBoolean(false);
+        } else {
+            out.writeBoolean(true);
+            out.writeVLong(compressionThreshold);
+        }
         if (toFetch == null) {
             out.writeVInt(0);
         } else {
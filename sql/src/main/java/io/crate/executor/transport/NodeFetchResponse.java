@@ -24,6 +24,7 @@ package io.crate.executor.transport;
 import com.carrotsearch.hppc.IntObjectHashMap;
 import com.carrotsearch.hppc.IntObjectMap;
 import com.carrotsearch.hppc.cursors.IntObjectCursor;
+import com.carrotsearch.hppc.cursors.ObjectCursor;
 import io.crate.Streamer;
 import io.crate.breaker.RamAccountingContext;
 import io.crate.data.Bucket;
@@ -64,6 +65,20 @@ public class NodeFetchResponse extends TransportResponse {
         return fetched;
     }
 
+    /**
+     * @return the size in bytes of the serialized rows
+     */
+    public long ramBytesUsed() {
+        if (fetched == null) {
+            return 0L;
+        }
+        long bytes = 0L;
+        for (ObjectCursor<StreamBucket> cursor : fetched.values()) {
+            bytes += cursor.value.ramBytesUsed();
+        }
+        return bytes;
+    }
+
     @Override
     public void readFrom(StreamInput in) throws IOException {
         assert ramAccountingContext != null : "RamAccountingContext must be present to receive a NodeFetchResponse";
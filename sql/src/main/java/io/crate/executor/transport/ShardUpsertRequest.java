@@ -41,6 +41,8 @@ import org.elasticsearch.index.shard.ShardId;
 
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
 import java.util.UUID;
 
 public class ShardUpsertRequest extends ShardRequest<ShardUpsertRequest, ShardUpsertRequest.Item> {
@@ -51,6 +53,12 @@ public class ShardUpsertRequest extends ShardRequest<ShardUpsertRequest, ShardUp
     private boolean validateConstraints = true;
     private boolean isRetry = false;
 
+    /**
+     * Set once the primary has built the source of the items, see {@link #replicateSourceOnly(boolean)}.
+     * Not streamed, the primary and every reroute attempt work on the full request.
+     */
+    private volatile boolean replicateSourceOnly = false;
+
     /**
      * List of column names used on update
      */
@@ -151,6 +159,15 @@ public class ShardUpsertRequest extends ShardRequest<ShardUpsertRequest, ShardUp
         isRetry = true;
     }
 
+    /**
+     * If set, the request is written without the update assignments and insert values of its items.
+     * They are only needed to build the source on the primary, replicas index the source as it is.
+     * The items themselves are left untouched, so the request can still be re-sent to a primary.
+     */
+    void replicateSourceOnly(boolean replicateSourceOnly) {
+        this.replicateSourceOnly = replicateSourceOnly;
+    }
+
     @Override
     public void readFrom(StreamInput in) throws IOException {
         super.readFrom(in);
@@ -174,6 +191,43 @@ public class ShardUpsertRequest extends ShardRequest<ShardUpsertRequest, ShardUp
         overwriteDuplicates = in.readBoolean();
         validateConstraints = in.readBoolean();
         readItems(in, locations.size());
+        readInsertValues(in);
+    }
+
+    /**
+     * Insert values are streamed column by column, after the items.
+     * This keeps the values of a column, which are of the same type, together which results in a better compression.
+     */
+    private void readInsertValues(StreamInput in) throws IOException {
+        if (insertValuesStreamer == null) {
+            return;
+        }
+        List<Item> items = items();
+        for (int i = 0; i < insertValuesStreamer.length; i++) {
+            Streamer streamer = insertValuesStreamer[i];
+            for (int j = 0; j < items.size(); j++) {
+                Object[] insertValues = items.get(j).insertValues;
+                if (insertValues != null) {
+                    insertValues[i] = streamer.readValueFrom(in);
+                }
+            }
+        }
+    }
+
+    private void writeInsertValues(StreamOutput out, boolean withPrimaryValues) throws IOException {
+        if (insertValuesStreamer == null || withPrimaryValues == false) {
+            return;
+        }
+        List<Item> items = items();
+        for (int i = 0; i < insertValuesStreamer.length; i++) {
+            Streamer streamer = insertValuesStreamer[i];
+            for (int j = 0; j < items.size(); j++) {
+                Object[] insertValues = items.get(j).insertValues;
+                if (insertValues != null && insertValues.length > 0) {
+                    streamer.writeValueTo(out, insertValues[i]);
+                }
+            }
+        }
     }
 
     @Override
@@ -199,7 +253,11 @@ public class ShardUpsertRequest extends ShardRequest<ShardUpsertRequest, ShardUp
         out.writeBoolean(continueOnError);
         out.writeBoolean(overwriteDuplicates);
         out.writeBoolean(validateConstraints);
-        writeItems(out);
+        boolean withPrimaryValues = replicateSourceOnly == false;
+        for (Item item : items()) {
+            item.writeTo(out, withPrimaryValues);
+        }
+        writeInsertValues(out, withPrimaryValues);
     }
 
     @Override
@@ -361,12 +419,9 @@ public class ShardUpsertRequest extends ShardRequest<ShardUpsertRequest, ShardUp
                     updateAssignments[i] = Symbols.fromStream(in);
                 }
             }
-            int missingAssignmentsSize = in.readVInt();
-            if (missingAssignmentsSize > 0) {
-                this.insertValues = new Object[missingAssignmentsSize];
-                for (int i = 0; i < missingAssignmentsSize; i++) {
-                    insertValues[i] = insertValuesStreamer[i].readValueFrom(in);
-                }
+            if (in.readBoolean()) {
+                // the values are read by the request, see ShardUpsertRequest#readInsertValues
+                this.insertValues = new Object[insertValuesStreamer.length];
             }
             this.version = Version.readVersion(in).id;
             versionType = VersionType.fromValue(in.readByte());
@@ -378,8 +433,12 @@ public class ShardUpsertRequest extends ShardRequest<ShardUpsertRequest, ShardUp
 
         @Override
         public void writeTo(StreamOutput out) throws IOException {
+            writeTo(out, true);
+        }
+
+        void writeTo(StreamOutput out, boolean withPrimaryValues) throws IOException {
             out.writeString(id);
-            if (updateAssignments != null) {
+            if (withPrimaryValues && updateAssignments != null) {
                 out.writeVInt(updateAssignments.length);
                 for (Symbol updateAssignment : updateAssignments) {
                     Symbols.toStream(updateAssignment, out);
@@ -387,15 +446,17 @@ public class ShardUpsertRequest extends ShardRequest<ShardUpsertRequest, ShardUp
             } else {
                 out.writeVInt(0);
             }
-            // Stream References
-            if (insertValues != null) {
-                out.writeVInt(insertValues.length);
-                for (int i = 0; i < insertValues.length; i++) {
-                    insertValuesStreamer[i].writeValueTo(out, insertValues[i]);
+            // the values are written by the request, see ShardUpsertRequest#writeInsertValues
+            boolean hasInsertValues = withPrimaryValues && insertValues != null && insertValues.length > 0;
+            if (hasInsertValues) {
+                int numInsertColumns = insertValuesStreamer == null ? 0 : insertValuesStreamer.length;
+                if (insertValues.length != numInsertColumns) {
+                    throw new IllegalStateException(String.format(Locale.ENGLISH,
+                        "Number of insert values (%d) of item %s doesn't match the number of insert columns (%d)",
+                        insertValues.length, id, numInsertColumns));
                 }
-            } else {
-                out.writeVInt(0);
             }
+            out.writeBoolean(hasInsertValues);
 
             Version.writeVersion(Version.fromId((int) version), out);
             out.writeByte(versionType.getValue());
@@ -21,6 +21,7 @@
 
 package io.crate.executor.transport;
 
+import com.carrotsearch.hppc.ObjectIntHashMap;
 import com.google.common.base.Predicates;
 import com.google.common.base.Throwables;
 import com.google.common.collect.FluentIterable;
@@ -30,6 +31,8 @@ import io.crate.breaker.RamAccountingContext;
 import io.crate.data.Bucket;
 import io.crate.data.Row;
 import io.crate.data.RowN;
+import io.crate.types.StringType;
+import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.StreamInput;
@@ -38,11 +41,56 @@ import org.elasticsearch.common.io.stream.Streamable;
 
 import javax.annotation.Nullable;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 
+/**
+ * A bucket of rows which are kept in their serialized form.
+ * <p>
+ * String values are dictionary encoded: a value which has already been written to the bucket in the same column is
+ * written as a reference to its first occurrence. This reduces the size of buckets with repetitive string values,
+ * e.g. the group keys of a distributed GROUP BY.
+ * </p>
+ * <pre>
+ *     vInt 0:     literal value follows (written by the streamer), not added to the dictionary
+ *     vInt 1:     literal value follows (written by the streamer), added to the dictionary of the column
+ *     vInt n > 1: the (n - 2)th value of the dictionary of the column
+ * </pre>
+ * <p>
+ * Only the writer decides which values are added to a dictionary, the reader follows the flag.
+ * A dictionary is limited in the number of entries and bytes, long values are never added. If a column of a bucket
+ * rarely repeats its values, its dictionary is dropped and its remaining values are written as literals.
+ * </p>
+ */
 public class StreamBucket implements Bucket, Streamable {
 
+    /**
+     * max. number of values per column dictionary, further distinct values are always written as literals
+     */
+    static final int MAX_DICTIONARY_SIZE = 1024;
+
+    /**
+     * max. number of bytes of the values per column dictionary
+     */
+    static final int MAX_DICTIONARY_BYTES = 64 * 1024;
+
+    /**
+     * values which are longer are always written as literals, they are unlikely to be repeated
+     */
+    static final int MAX_DICTIONARY_VALUE_LENGTH = 256;
+
+    /**
+     * number of values of a column after which the hit rate of its dictionary is checked
+     */
+    static final int HIT_RATE_CHECK_INTERVAL = 128;
+
+    private static final int LITERAL = 0;
+    private static final int DICTIONARY_LITERAL = 1;
+    private static final int FIRST_DICTIONARY_REFERENCE = 2;
+
     private Streamer<?>[] streamers;
     private int size = -1;
     private BytesReference bytes;
@@ -55,6 +103,7 @@ public class StreamBucket implements Bucket, Streamable {
 
         private int size = 0;
         private final Streamer<?>[] streamers;
+        private final Dictionary[] dictionaries;
         private BytesStreamOutput out;
         private int prevOutSize = 0;
 
@@ -62,6 +111,7 @@ public class StreamBucket implements Bucket, Streamable {
             this.ramAccountingContext = ramAccountingContext;
             assert validStreamers(streamers) : "streamers must not be null and they shouldn't be of undefinedType";
             this.streamers = streamers;
+            this.dictionaries = new Dictionary[streamers.length];
             out = new BytesStreamOutput(INITIAL_PAGE_SIZE);
         }
 
@@ -69,15 +119,50 @@ public class StreamBucket implements Bucket, Streamable {
             assert streamers.length == row.numColumns() : "number of streamer must match row size";
 
             size++;
+            long dictionaryBytes = 0;
             for (int i = 0; i < row.numColumns(); i++) {
-                streamers[i].writeValueTo(out, row.get(i));
+                Streamer streamer = streamers[i];
+                if (isDictionaryEncoded(streamer)) {
+                    dictionaryBytes += writeDictionaryEncoded(i, streamer, (BytesRef) row.get(i));
+                } else {
+                    streamer.writeValueTo(out, row.get(i));
+                }
             }
             if (ramAccountingContext != null) {
-                ramAccountingContext.addBytes(out.size() - prevOutSize);
+                ramAccountingContext.addBytes(out.size() - prevOutSize + dictionaryBytes);
                 prevOutSize = out.size();
             }
         }
 
+        /**
+         * @return the number of bytes added to the dictionary
+         */
+        private long writeDictionaryEncoded(int column, Streamer streamer, @Nullable BytesRef value) throws IOException {
+            Dictionary dictionary = dictionaries[column];
+            if (dictionary == null) {
+                dictionary = new Dictionary();
+                dictionaries[column] = dictionary;
+            }
+            if (value == null || dictionary.disabled || value.length > MAX_DICTIONARY_VALUE_LENGTH) {
+                out.writeVInt(LITERAL);
+                streamer.writeValueTo(out, value);
+                return 0;
+            }
+            int idx = dictionary.lookup(value);
+            if (idx > -1) {
+                out.writeVInt(idx + FIRST_DICTIONARY_REFERENCE);
+                return 0;
+            }
+            if (dictionary.isFull(value)) {
+                out.writeVInt(LITERAL);
+                streamer.writeValueTo(out, value);
+                return 0;
+            }
+            out.writeVInt(DICTIONARY_LITERAL);
+            streamer.writeValueTo(out, value);
+            return dictionary.add(value);
+        }
+
         public void writeToStream(StreamOutput output) throws IOException {
             output.writeVInt(size);
             if (size > 0) {
@@ -95,6 +180,50 @@ public class StreamBucket implements Bucket, Streamable {
         public void reset() {
             out = new BytesStreamOutput(size); // next bucket is probably going to have the same size
             size = 0;
+            Arrays.fill(dictionaries, null);
+        }
+    }
+
+    /**
+     * The dictionary of a column used by the {@link Builder}
+     */
+    private static class Dictionary {
+
+        private final ObjectIntHashMap<BytesRef> values = new ObjectIntHashMap<>();
+        private long bytes = 0;
+        private int lookups = 0;
+        private int hits = 0;
+        private boolean disabled = false;
+
+        /**
+         * @return the index of the value or -1 if it isn't contained
+         */
+        int lookup(BytesRef value) {
+            int idx = values.getOrDefault(value, -1);
+            lookups++;
+            if (idx > -1) {
+                hits++;
+            }
+            if (lookups % HIT_RATE_CHECK_INTERVAL == 0 && hits * 8 < lookups) {
+                // less than 1 in 8 values are repeated, the lookups and the copied values aren't worth it
+                values.clear();
+                disabled = true;
+            }
+            return idx;
+        }
+
+        boolean isFull(BytesRef value) {
+            return disabled || values.size() >= MAX_DICTIONARY_SIZE || bytes + value.length > MAX_DICTIONARY_BYTES;
+        }
+
+        /**
+         * @return the number of bytes added to the dictionary
+         */
+        long add(BytesRef value) {
+            // the row values may be re-used, so the key must be a copy
+            values.put(BytesRef.deepCopyOf(value), values.size());
+            bytes += value.length;
+            return value.length;
         }
     }
 
@@ -108,11 +237,22 @@ public class StreamBucket implements Bucket, Streamable {
         return size;
     }
 
+    /**
+     * @return the number of bytes of the serialized rows
+     */
+    public long ramBytesUsed() {
+        return bytes == null ? 0L : bytes.length();
+    }
+
     public void streamers(Streamer<?>[] streamers) {
         assert validStreamers(streamers) : "streamers must not be null and they shouldn't be of undefinedType";
         this.streamers = streamers;
     }
 
+    private static boolean isDictionaryEncoded(Streamer<?> streamer) {
+        return streamer instanceof StringType;
+    }
+
     private static boolean validStreamers(Streamer<?>[] streamers) {
         if (streamers == null || streamers.length == 0) {
             return true;
@@ -142,6 +282,7 @@ public class StreamBucket implements Bucket, Streamable {
         private final StreamInput input;
         private final Object[] current;
         private final RowN row;
+        private final List<Object>[] dictionaries;
         private int pos = 0;
 
         private RowIterator(StreamInput streamInput, Streamer<?>[] streamers, int size) {
@@ -150,6 +291,26 @@ public class StreamBucket implements Bucket, Streamable {
             input = streamInput;
             current = new Object[streamers.length];
             row = new RowN(current);
+            //noinspection unchecked
+            dictionaries = new List[streamers.length];
+            for (int c = 0; c < streamers.length; c++) {
+                if (isDictionaryEncoded(streamers[c])) {
+                    dictionaries[c] = new ArrayList<>();
+                }
+            }
+        }
+
+        private Object readDictionaryEncoded(int column) throws IOException {
+            List<Object> dictionary = dictionaries[column];
+            int idx = input.readVInt();
+            if (idx >= FIRST_DICTIONARY_REFERENCE) {
+                return dictionary.get(idx - FIRST_DICTIONARY_REFERENCE);
+            }
+            Object value = streamers[column].readValueFrom(input);
+            if (idx == DICTIONARY_LITERAL) {
+                dictionary.add(value);
+            }
+            return value;
         }
 
         @Override
@@ -161,7 +322,11 @@ public class StreamBucket implements Bucket, Streamable {
         public Row next() {
             for (int c = 0; c < streamers.length; c++) {
                 try {
-                    current[c] = streamers[c].readValueFrom(input);
+                    if (dictionaries[c] == null) {
+                        current[c] = streamers[c].readValueFrom(input);
+                    } else {
+                        current[c] = readDictionaryEncoded(c);
+                    }
                 } catch (IOException e) {
                     Throwables.propagate(e);
                 }
@@ -28,11 +28,18 @@ import io.crate.breaker.RamAccountingContext;
 import io.crate.jobs.JobContextService;
 import io.crate.operation.collect.stats.JobsLogs;
 import io.crate.operation.fetch.NodeFetchOperation;
+import io.crate.settings.CrateSetting;
+import io.crate.types.DataTypes;
 import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.action.ActionListenerResponseHandler;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.inject.Singleton;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.TransportResponseOptions;
 import org.elasticsearch.transport.TransportService;
 
 import java.util.concurrent.CompletableFuture;
@@ -43,17 +50,35 @@ public class TransportFetchNodeAction implements NodeAction<NodeFetchRequest, No
     private static final String TRANSPORT_ACTION = "crate/sql/node/fetch";
     private static final String EXECUTOR_NAME = ThreadPool.Names.SEARCH;
 
+    public static final CrateSetting<Boolean> COMPRESS_SETTING = CrateSetting.of(Setting.boolSetting(
+        "distributed.fetch.compress", false,
+        Setting.Property.NodeScope), DataTypes.BOOLEAN);
+
+    public static final CrateSetting<ByteSizeValue> COMPRESS_THRESHOLD_SETTING = CrateSetting.of(Setting.byteSizeSetting(
+        "distributed.fetch.compress_threshold", new ByteSizeValue(64, ByteSizeUnit.KB),
+        Setting.Property.NodeScope), DataTypes.STRING);
+
+    private static final TransportResponseOptions COMPRESS_RESPONSE =
+        TransportResponseOptions.builder().withCompress(true).build();
+
     private final Transports transports;
     private final NodeFetchOperation nodeFetchOperation;
+    private final long compressionThreshold;
 
     @Inject
-    public TransportFetchNodeAction(TransportService transportService,
+    public TransportFetchNodeAction(Settings settings,
+                                    TransportService transportService,
                                     Transports transports,
                                     ThreadPool threadPool,
                                     JobsLogs jobsLogs,
                                     JobContextService jobContextService,
                                     CrateCircuitBreakerService circuitBreakerService) {
         this.transports = transports;
+        if (COMPRESS_SETTING.setting().get(settings)) {
+            this.compressionThreshold = COMPRESS_THRESHOLD_SETTING.setting().get(settings).getBytes();
+        } else {
+            this.compressionThreshold = NodeFetchRequest.NO_COMPRESSION;
+        }
         this.nodeFetchOperation = new NodeFetchOperation(
             threadPool.executor(ThreadPool.Names.SEARCH),
             jobsLogs,
@@ -75,6 +100,14 @@ public class TransportFetchNodeAction implements NodeAction<NodeFetchRequest, No
         );
     }
 
+    /**
+     * @return the threshold to include in the fetch requests of this node,
+     *         so that the nodes compress their responses if this node is configured to receive compressed responses
+     */
+    public long compressionThreshold() {
+        return compressionThreshold;
+    }
+
     public void execute(String targetNode,
                         final IntObjectMap<Streamer[]> streamers,
                         final NodeFetchRequest request,
@@ -94,4 +127,13 @@ public class TransportFetchNodeAction implements NodeAction<NodeFetchRequest, No
         );
         return resultFuture.thenApply(NodeFetchResponse::forSending);
     }
+
+    @Override
+    public TransportResponseOptions responseOptions(NodeFetchRequest request, NodeFetchResponse response) {
+        long threshold = request.compressionThreshold();
+        if (threshold != NodeFetchRequest.NO_COMPRESSION && response.ramBytesUsed() >= threshold) {
+            return COMPRESS_RESPONSE;
+        }
+        return TransportResponseOptions.EMPTY;
+    }
 }
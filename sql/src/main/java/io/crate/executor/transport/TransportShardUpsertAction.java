@@ -36,16 +36,21 @@ import io.crate.jobs.JobContextService;
 import io.crate.metadata.*;
 import io.crate.metadata.doc.DocTableInfo;
 import io.crate.metadata.table.Operation;
+import io.crate.settings.CrateSetting;
+import io.crate.types.DataTypes;
 import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.ElasticsearchGenerationException;
+import org.elasticsearch.ElasticsearchParseException;
 import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.action.index.IndexRequest;
 import org.elasticsearch.action.support.ActionFilters;
 import org.elasticsearch.action.support.replication.ReplicationOperation;
 import org.elasticsearch.cluster.action.index.MappingUpdatedAction;
 import org.elasticsearch.cluster.action.shard.ShardStateAction;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
 import org.elasticsearch.cluster.metadata.IndexNameExpressionResolver;
+import org.elasticsearch.cluster.metadata.MetaData;
 import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
@@ -53,10 +58,12 @@ import org.elasticsearch.common.collect.Tuple;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.inject.Singleton;
 import org.elasticsearch.common.lucene.uid.Versions;
+import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentFactory;
 import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.XContentParser;
 import org.elasticsearch.common.xcontent.XContentType;
 import org.elasticsearch.common.xcontent.support.XContentMapValues;
 import org.elasticsearch.index.VersionType;
@@ -71,6 +78,7 @@ import org.elasticsearch.index.translog.Translog;
 import org.elasticsearch.indices.IndicesService;
 import org.elasticsearch.search.fetch.subphase.FetchSourceContext;
 import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.TransportRequestOptions;
 import org.elasticsearch.transport.TransportService;
 
 import javax.annotation.Nonnull;
@@ -85,8 +93,16 @@ import static org.elasticsearch.action.support.replication.ReplicationOperation.
 public class TransportShardUpsertAction extends TransportShardAction<ShardUpsertRequest, ShardUpsertRequest.Item> {
 
     private final static String ACTION_NAME = "indices:crate/data/write/upsert";
-    private final static SymbolToFieldExtractor<GetResult> SYMBOL_TO_FIELD_EXTRACTOR =
-        new SymbolToFieldExtractor<>(new GetResultFieldExtractorFactory());
+
+    public static final CrateSetting<Boolean> BULK_COMPRESS_SETTING = CrateSetting.of(Setting.boolSetting(
+        "bulk.compress", false,
+        Setting.Property.NodeScope), DataTypes.BOOLEAN);
+
+    private final static SymbolToFieldExtractor<Map<String, Object>> SYMBOL_TO_FIELD_EXTRACTOR =
+        new SymbolToFieldExtractor<>(new SourceFieldExtractorFactory());
+
+    private final static SymbolToFieldExtractor<Map<String, Object>> COLUMN_VALUES_EXTRACTOR =
+        new SymbolToFieldExtractor<>(new ColumnValuesExtractorFactory());
 
     private final MappingUpdatedAction mappingUpdatedAction;
     private final Functions functions;
@@ -113,6 +129,15 @@ public class TransportShardUpsertAction extends TransportShardAction<ShardUpsert
         jobContextService.addListener(this);
     }
 
+    @Override
+    protected TransportRequestOptions transportOptions() {
+        // upsert requests of inserts can be large, compressing them reduces the bandwidth used to route
+        // the requests to the primaries and to replicate them
+        return TransportRequestOptions.builder()
+            .withCompress(BULK_COMPRESS_SETTING.setting().get(settings))
+            .build();
+    }
+
     @Override
     protected WriteResult<ShardResponse> processRequestItems(IndexShard indexShard,
                                                              ShardUpsertRequest request,
@@ -125,6 +150,10 @@ public class TransportShardUpsertAction extends TransportShardAction<ShardUpsert
         if (request.validateConstraints()) {
             notUsedNonGeneratedColumns = getNotUsedNonGeneratedColumns(request.insertColumns(), tableInfo);
         }
+        RawSourceGeneratedColumns rawSourceGeneratedColumns = null;
+        if (request.insertColumns() != null && request.isRawSourceInsert()) {
+            rawSourceGeneratedColumns = new RawSourceGeneratedColumns(functions, tableInfo, request.validateConstraints());
+        }
 
         Translog.Location translogLocation = null;
         for (int i = 0; i < request.itemIndices().size(); i++) {
@@ -145,6 +174,7 @@ public class TransportShardUpsertAction extends TransportShardAction<ShardUpsert
                     indexShard,
                     item.insertValues() != null, // try insert first
                     notUsedNonGeneratedColumns,
+                    rawSourceGeneratedColumns,
                     0);
                 shardResponse.add(location);
             } catch (Exception e) {
@@ -169,9 +199,18 @@ public class TransportShardUpsertAction extends TransportShardAction<ShardUpsert
                         (e instanceof VersionConflictEngineException)));
             }
         }
+        // the replicas only need the source of the items
+        request.replicateSourceOnly(true);
         return new WriteResult<>(shardResponse, translogLocation);
     }
 
+    @Override
+    protected void resolveRequest(MetaData metaData, IndexMetaData indexMetaData, ShardUpsertRequest request) {
+        super.resolveRequest(metaData, indexMetaData, request);
+        // the request is re-sent to the primary if it was rerouted (e.g. on a RetryOnPrimaryException)
+        request.replicateSourceOnly(false);
+    }
+
     @Override
     protected Translog.Location processRequestItemsOnReplica(IndexShard indexShard, ShardUpsertRequest request) {
         Translog.Location location = null;
@@ -200,6 +239,7 @@ public class TransportShardUpsertAction extends TransportShardAction<ShardUpsert
                                           IndexShard indexShard,
                                           boolean tryInsertFirst,
                                           Collection<ColumnIdent> notUsedNonGeneratedColumns,
+                                          @Nullable RawSourceGeneratedColumns rawSourceGeneratedColumns,
                                           int retryCount) throws Exception {
         try {
             long version;
@@ -208,7 +248,8 @@ public class TransportShardUpsertAction extends TransportShardAction<ShardUpsert
                 // set version so it will fail if already exists (will be overwritten for updates, see below)
                 version = Versions.MATCH_DELETED;
                 try {
-                    item.source(prepareInsert(tableInfo, notUsedNonGeneratedColumns, request, item));
+                    item.source(prepareInsert(tableInfo, notUsedNonGeneratedColumns, rawSourceGeneratedColumns,
+                        request, item));
                 } catch (IOException e) {
                     throw ExceptionsHelper.convertToElastic(e);
                 }
@@ -229,14 +270,15 @@ public class TransportShardUpsertAction extends TransportShardAction<ShardUpsert
             if (item.updateAssignments() != null) {
                 if (tryInsertFirst) {
                     // insert failed, document already exists, try update
-                    return indexItem(tableInfo, request, item, indexShard, false, notUsedNonGeneratedColumns, 0);
+                    return indexItem(tableInfo, request, item, indexShard, false, notUsedNonGeneratedColumns,
+                        rawSourceGeneratedColumns, 0);
                 } else if (item.retryOnConflict()) {
                     if (logger.isTraceEnabled()) {
                         logger.trace("[{}] VersionConflict, retrying operation for document id {}, retry count: {}",
                             indexShard.shardId(), item.id(), retryCount);
                     }
                     return indexItem(tableInfo, request, item, indexShard, false, notUsedNonGeneratedColumns,
-                        retryCount + 1);
+                        rawSourceGeneratedColumns, retryCount + 1);
                 }
             }
             throw e;
@@ -277,6 +319,8 @@ public class TransportShardUpsertAction extends TransportShardAction<ShardUpsert
                 indexShard.shardId(), Constants.DEFAULT_MAPPING_TYPE, item.id(), "TODO: add explanation");
         }
 
+        // the source is parsed only once, the assignments and generated expressions are evaluated against the
+        // parsed source before it is updated (instead of using getResult.sourceAsMap() which would parse it again)
         Tuple<XContentType, Map<String, Object>> sourceAndContent = XContentHelper.convertToMap(getResult.internalSourceRef(), true);
         final Map<String, Object> updatedSourceAsMap;
         final XContentType updateSourceContentType = sourceAndContent.v1();
@@ -293,7 +337,7 @@ public class TransportShardUpsertAction extends TransportShardAction<ShardUpsert
              * the data might be returned in the wrong format (date as string instead of long)
              */
             String columnPath = request.updateColumns()[i];
-            Object value = SYMBOL_TO_FIELD_EXTRACTOR.convert(item.updateAssignments()[i], ctx).apply(getResult);
+            Object value = SYMBOL_TO_FIELD_EXTRACTOR.convert(item.updateAssignments()[i], ctx).apply(updatedSourceAsMap);
             Reference reference = tableInfo.getReference(ColumnIdent.fromPath(columnPath));
 
             if (reference != null) {
@@ -313,7 +357,7 @@ public class TransportShardUpsertAction extends TransportShardAction<ShardUpsert
 
         // For updates we always have to enforce the validation of constraints on shards.
         // Currently the validation is done only for generated columns.
-        processGeneratedColumns(tableInfo, pathsToUpdate, updatedGeneratedColumns, true, getResult);
+        processGeneratedColumns(tableInfo, pathsToUpdate, updatedGeneratedColumns, true, updatedSourceAsMap);
 
         updateSourceByPaths(updatedSourceAsMap, pathsToUpdate);
 
@@ -328,39 +372,27 @@ public class TransportShardUpsertAction extends TransportShardAction<ShardUpsert
 
     private BytesReference prepareInsert(DocTableInfo tableInfo,
                                          Collection<ColumnIdent> notUsedNonGeneratedColumns,
+                                         @Nullable RawSourceGeneratedColumns rawSourceGeneratedColumns,
                                          ShardUpsertRequest request,
                                          ShardUpsertRequest.Item item) throws IOException {
-        List<GeneratedReference> generatedReferencesWithValue = new ArrayList<>();
-        BytesReference source;
+        Reference[] insertColumns = request.insertColumns();
+        Object[] insertValues = item.insertValues();
+        int numGeneratedColumnsWithValue = 0;
         if (request.isRawSourceInsert()) {
-            assert item.insertValues().length > 0 : "empty insert values array";
-            source = new BytesArray((BytesRef) item.insertValues()[0]);
+            assert insertValues.length > 0 : "empty insert values array";
         } else {
-            XContentBuilder builder = XContentFactory.jsonBuilder().startObject();
-
             // For direct inserts it is enough to have constraints validation on a handler.
             // validateConstraints() of ShardUpsertRequest should result in false in this case.
             if (request.validateConstraints()) {
                 ConstraintsValidator.validateConstraintsForNotUsedColumns(notUsedNonGeneratedColumns, tableInfo);
             }
-
-            for (int i = 0; i < item.insertValues().length; i++) {
-                Object value = item.insertValues()[i];
-                Reference ref = request.insertColumns()[i];
-
-                ConstraintsValidator.validate(value, ref);
-
-                if (ref.granularity() == RowGranularity.DOC) {
-                    // don't include values for partitions in the _source
-                    // ideally columns with partition granularity shouldn't be part of the request
-                    builder.field(ref.ident().columnIdent().fqn(), value);
-                    if (ref instanceof GeneratedReference) {
-                        generatedReferencesWithValue.add((GeneratedReference) ref);
-                    }
+            for (int i = 0; i < insertValues.length; i++) {
+                Reference ref = insertColumns[i];
+                ConstraintsValidator.validate(insertValues[i], ref);
+                if (ref.granularity() == RowGranularity.DOC && ref instanceof GeneratedReference) {
+                    numGeneratedColumnsWithValue++;
                 }
             }
-            builder.endObject();
-            source = builder.bytes();
         }
 
         int generatedColumnSize = 0;
@@ -370,16 +402,32 @@ public class TransportShardUpsertAction extends TransportShardAction<ShardUpsert
             }
         }
 
-        int numMissingGeneratedColumns = generatedColumnSize - generatedReferencesWithValue.size();
+        int numMissingGeneratedColumns = generatedColumnSize - numGeneratedColumnsWithValue;
         if (numMissingGeneratedColumns > 0 ||
-            (generatedReferencesWithValue.size() > 0 && request.validateConstraints())) {
+            (numGeneratedColumnsWithValue > 0 && request.validateConstraints())) {
             // we need to evaluate some generated column expressions
-            Map<String, Object> sourceMap = processGeneratedColumnsOnInsert(tableInfo, request.insertColumns(), item.insertValues(),
+            if (rawSourceGeneratedColumns != null) {
+                return rawSourceGeneratedColumns.generateSource((BytesRef) insertValues[0]);
+            }
+            Map<String, Object> sourceMap = processGeneratedColumnsOnInsert(tableInfo, insertColumns, insertValues,
                 request.isRawSourceInsert(), request.validateConstraints());
-            source = XContentFactory.jsonBuilder().map(sourceMap).bytes();
+            return XContentFactory.jsonBuilder().map(sourceMap).bytes();
         }
 
-        return source;
+        // no generated columns to evaluate, the source can be used as is or written directly without an intermediate map
+        if (request.isRawSourceInsert()) {
+            return new BytesArray((BytesRef) insertValues[0]);
+        }
+        XContentBuilder builder = XContentFactory.jsonBuilder().startObject();
+        for (int i = 0; i < insertValues.length; i++) {
+            Reference ref = insertColumns[i];
+            if (ref.granularity() == RowGranularity.DOC) {
+                // don't include values for partitions in the _source
+                // ideally columns with partition granularity shouldn't be part of the request
+                builder.field(ref.ident().columnIdent().fqn(), insertValues[i]);
+            }
+        }
+        return builder.endObject().bytes();
     }
 
     private Engine.Index prepareIndexOnPrimary(IndexShard indexShard,
@@ -517,7 +565,7 @@ public class TransportShardUpsertAction extends TransportShardAction<ShardUpsert
                                          Map<String, Object> updatedColumns,
                                          Map<String, Object> updatedGeneratedColumns,
                                          boolean validateConstraints,
-                                         @Nullable GetResult getResult) {
+                                         @Nullable Map<String, Object> currentSource) {
         SymbolToFieldExtractorContext ctx = new SymbolToFieldExtractorContext(functions, updatedColumns);
 
         for (GeneratedReference reference : tableInfo.generatedColumns()) {
@@ -532,8 +580,9 @@ public class TransportShardUpsertAction extends TransportShardAction<ShardUpsert
                     ||
                     generatedExpressionEvaluationNeeded(reference.referencedReferences(), updatedColumns.keySet())) {
                     // at least one referenced column was updated, need to evaluate expression and update column
-                    Function<GetResult, Object> extractor = SYMBOL_TO_FIELD_EXTRACTOR.convert(reference.generatedExpression(), ctx);
-                    Object generatedValue = extractor.apply(getResult);
+                    Function<Map<String, Object>, Object> extractor =
+                        SYMBOL_TO_FIELD_EXTRACTOR.convert(reference.generatedExpression(), ctx);
+                    Object generatedValue = extractor.apply(currentSource);
 
                     if (userSuppliedValue == null) {
                         // add column & value
@@ -553,8 +602,8 @@ public class TransportShardUpsertAction extends TransportShardAction<ShardUpsert
      * Evaluation is needed either if expression contains no reference at all
      * or if a referenced column value has changed.
      */
-    private boolean generatedExpressionEvaluationNeeded(List<Reference> referencedReferences,
-                                                        Collection<String> updatedColumns) {
+    private static boolean generatedExpressionEvaluationNeeded(List<Reference> referencedReferences,
+                                                               Collection<String> updatedColumns) {
         boolean evalNeeded = referencedReferences.isEmpty();
         for (Reference reference : referencedReferences) {
             for (String columnName : updatedColumns) {
@@ -573,6 +622,7 @@ public class TransportShardUpsertAction extends TransportShardAction<ShardUpsert
      * it will not be merged but overwritten. The keys of the changes map representing a path of
      * the source map tree.
      * If the path doesn't exists, a new tree will be inserted.
+     * Objects on the path are copied instead of changed in place.
      * <p/>
      * TODO: detect NOOP
      */
@@ -596,6 +646,10 @@ public class TransportShardUpsertAction extends TransportShardAction<ShardUpsert
                     throw new NullPointerException(String.format(Locale.ENGLISH,
                         "Object %s is null, cannot write %s onto it", currentKey, subChanges));
                 }
+                // copy the inner object before changing it, values extracted from the source
+                // (e.g. assigned to another column) may still reference it
+                innerSource = new LinkedHashMap<>(innerSource);
+                source.put(currentKey, innerSource);
                 updateSourceByPaths(innerSource, subChanges);
             } else {
                 // overwrite or insert the field
@@ -661,23 +715,143 @@ public class TransportShardUpsertAction extends TransportShardAction<ShardUpsert
                 return super.referenceValue(reference);
             }
 
-            Object value = updatedColumnValues.get(reference.ident().columnIdent().fqn());
-            if (value == null && !reference.ident().isColumn()) {
-                value = XContentMapValues.extractValue(reference.ident().columnIdent().fqn(), updatedColumnValues);
+            return columnValue(reference, updatedColumnValues);
+        }
+    }
+
+    /**
+     * @param columnValues values by column, the keys may be paths (e.g. {@code user.name}) as well
+     */
+    private static Object columnValue(Reference reference, Map<String, Object> columnValues) {
+        Object value = columnValues.get(reference.ident().columnIdent().fqn());
+        if (value == null && !reference.ident().isColumn()) {
+            value = XContentMapValues.extractValue(reference.ident().columnIdent().fqn(), columnValues);
+        }
+        return reference.valueType().value(value);
+    }
+
+    /**
+     * Extracts values from a map of column values, like {@link SymbolToFieldExtractorContext#referenceValue(Reference)}.
+     * Used to compile expressions once and evaluate them for the values of every row.
+     */
+    private static class ColumnValuesExtractorFactory
+        implements FieldExtractorFactory<Map<String, Object>, SymbolToFieldExtractor.Context> {
+
+        @Override
+        public Function<Map<String, Object>, Object> build(final Reference reference, SymbolToFieldExtractor.Context context) {
+            return columnValues -> columnValue(reference, columnValues);
+        }
+    }
+
+    /**
+     * Adds the values of generated columns to the raw JSON source of an insert (e.g. by {@code COPY FROM}).
+     * <p>
+     * The source is copied token by token, only the top level columns which are referenced by a generated column
+     * expression or which are generated columns themselves are parsed. The expressions are compiled once and
+     * evaluated for every source.
+     * This results in the same source as parsing the whole source into a map, adding the generated values and
+     * serializing it again (see {@link #processGeneratedColumnsOnInsert}).
+     * </p>
+     */
+    @VisibleForTesting
+    static class RawSourceGeneratedColumns {
+
+        private final List<GeneratedReference> generatedColumns = new ArrayList<>();
+        private final List<Function<Map<String, Object>, Object>> expressions = new ArrayList<>();
+        private final Set<String> requiredColumns = new HashSet<>();
+        private final boolean validateConstraints;
+
+        RawSourceGeneratedColumns(Functions functions, DocTableInfo tableInfo, boolean validateConstraints) {
+            this.validateConstraints = validateConstraints;
+            // resolves no values while compiling, so all references are extracted from the column values
+            SymbolToFieldExtractorContext ctx = new SymbolToFieldExtractorContext(functions, 0, null, null);
+            for (GeneratedReference reference : tableInfo.generatedColumns()) {
+                // partitionedBy columns cannot be updated
+                if (!tableInfo.partitionedByColumns().contains(reference)) {
+                    generatedColumns.add(reference);
+                    expressions.add(COLUMN_VALUES_EXTRACTOR.convert(reference.generatedExpression(), ctx));
+                    requiredColumns.add(reference.ident().columnIdent().name());
+                    for (Reference referencedReference : reference.referencedReferences()) {
+                        requiredColumns.add(referencedReference.ident().columnIdent().name());
+                    }
+                }
+            }
+        }
+
+        BytesReference generateSource(BytesRef rawSource) throws IOException {
+            BytesArray source = new BytesArray(rawSource);
+            XContentBuilder builder = XContentFactory.jsonBuilder().startObject();
+            Map<String, Object> columnValues = new HashMap<>();
+            try (XContentParser parser = XContentFactory.xContent(source).createParser(source)) {
+                if (parser.nextToken() != XContentParser.Token.START_OBJECT) {
+                    throw new ElasticsearchParseException("Failed to parse source, it must be an object");
+                }
+                while (parser.nextToken() == XContentParser.Token.FIELD_NAME) {
+                    String column = parser.currentName();
+                    int dotIndex = column.indexOf('.');
+                    if (requiredColumns.contains(dotIndex == -1 ? column : column.substring(0, dotIndex))) {
+                        parser.nextToken();
+                        Object value = readValue(parser);
+                        columnValues.put(column, value);
+                        builder.field(column, value);
+                    } else {
+                        builder.copyCurrentStructure(parser);
+                    }
+                }
+            }
+            for (int i = 0; i < generatedColumns.size(); i++) {
+                GeneratedReference reference = generatedColumns.get(i);
+                String column = reference.ident().columnIdent().fqn();
+                Object userSuppliedValue = columnValues.get(column);
+                if (validateConstraints) {
+                    ConstraintsValidator.validate(userSuppliedValue, reference);
+                }
+                if ((userSuppliedValue != null && validateConstraints)
+                    || generatedExpressionEvaluationNeeded(reference.referencedReferences(), columnValues.keySet())) {
+                    Object generatedValue = expressions.get(i).apply(columnValues);
+                    if (userSuppliedValue == null) {
+                        columnValues.put(column, generatedValue);
+                        builder.field(column, generatedValue);
+                    } else if (validateConstraints &&
+                               reference.valueType().compareValueTo(generatedValue, userSuppliedValue) != 0) {
+                        throw new IllegalArgumentException(String.format(Locale.ENGLISH,
+                            "Given value %s for generated column does not match defined generated expression value %s",
+                            userSuppliedValue, generatedValue));
+                    }
+                }
+            }
+            return builder.endObject().bytes();
+        }
+
+        @Nullable
+        private static Object readValue(XContentParser parser) throws IOException {
+            switch (parser.currentToken()) {
+                case START_OBJECT:
+                    return parser.mapOrdered();
+                case START_ARRAY:
+                    return parser.listOrderedMap();
+                case VALUE_NULL:
+                    return null;
+                default:
+                    return parser.objectText();
             }
-            return reference.valueType().value(value);
         }
     }
 
-    private static class GetResultFieldExtractorFactory implements FieldExtractorFactory<GetResult, SymbolToFieldExtractor.Context> {
+    /**
+     * Extracts values from the parsed source of the document which is updated
+     */
+    private static class SourceFieldExtractorFactory
+        implements FieldExtractorFactory<Map<String, Object>, SymbolToFieldExtractor.Context> {
+
         @Override
-        public Function<GetResult, Object> build(final Reference reference, SymbolToFieldExtractor.Context context) {
-            return getResult -> {
-                if (getResult == null) {
+        public Function<Map<String, Object>, Object> build(final Reference reference, SymbolToFieldExtractor.Context context) {
+            return source -> {
+                if (source == null) {
                     return null;
                 }
                 return reference.valueType().value(XContentMapValues.extractValue(
-                    reference.ident().columnIdent().fqn(), getResult.sourceAsMap()));
+                    reference.ident().columnIdent().fqn(), source));
             };
         }
     }
@@ -31,12 +31,12 @@ import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
 
 import javax.annotation.Nullable;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.Executor;
-import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Consumer which sends requests to downstream nodes every {@link #pageSize} rows.
@@ -44,11 +44,26 @@ import java.util.concurrent.atomic.AtomicInteger;
  * The rows from the source {@link BatchIterator} are "bucketed" using a {@link MultiBucketBuilder}. So a downstream
  * can either receive a part of the data or all data.
  *
- * Every time requests to the downstreams are made consumption of the source BatchIterator is stopped until a response
- * from all downstreams is received.
+ * A downstream receives one page at a time, the next page is sent as soon as it responded to the previous one.
+ * Pages for a downstream which didn't respond yet are queued, so a slow downstream doesn't stall the others.
+ * Consumption of the source BatchIterator is only stopped if the queue of a downstream is full
+ * (see {@link #MAX_BUFFERED_PAGES}) and continued once it has been drained.
  */
 public class DistributingConsumer implements BatchConsumer {
 
+    /**
+     * Max. number of pages per downstream, including the one which is in flight, which may be buffered before
+     * the consumption of the source is paused.
+     */
+    static final int MAX_BUFFERED_PAGES = 3;
+
+    private enum State {
+        CONSUMING,
+        PAUSED,
+        FINISHED, // the last page or a failure has been queued
+        CLOSED
+    }
+
     private final Logger logger;
     private final Executor responseExecutor;
     private final UUID jobId;
@@ -61,11 +76,13 @@ public class DistributingConsumer implements BatchConsumer {
     private final Bucket[] buckets;
     private final List<Downstream> downstreams;
     private final boolean traceEnabled;
+    private final Object lock = new Object();
 
     @VisibleForTesting
     final MultiBucketBuilder multiBucketBuilder;
 
     private volatile Throwable failure;
+    private State state = State.CONSUMING;
 
     public DistributingConsumer(Logger logger,
                                 Executor responseExecutor,
@@ -112,8 +129,9 @@ public class DistributingConsumer implements BatchConsumer {
             while (it.moveNext()) {
                 multiBucketBuilder.add(row);
                 if (multiBucketBuilder.size() >= pageSize) {
-                    forwardResults(it, false);
-                    return;
+                    if (forwardResults(it, false) == false) {
+                        return;
+                    }
                 }
             }
             allLoaded = it.allLoaded();
@@ -136,117 +154,209 @@ public class DistributingConsumer implements BatchConsumer {
 
     private void forwardFailure(@Nullable final BatchIterator it, final Throwable f) {
         Throwable failure = SQLExceptions.unwrap(f); // make sure it's streamable
-        AtomicInteger numActiveRequests = new AtomicInteger(downstreams.size());
         DistributedResultRequest request =
             new DistributedResultRequest(jobId, targetPhaseId, inputId, bucketIdx, failure, false);
-        for (int i = 0; i < downstreams.size(); i++) {
-            Downstream downstream = downstreams.get(i);
-            if (downstream.needsMoreData == false) {
-                countdownAndMaybeCloseIt(numActiveRequests, it);
-            } else {
-                if (traceEnabled) {
-                    logger.trace("forwardFailure targetNode={} targetPhase={}/{} bucket={} failure={}",
-                        downstream.nodeId, targetPhaseId, inputId, bucketIdx, failure);
+        synchronized (lock) {
+            state = State.FINISHED;
+            for (Downstream downstream : downstreams) {
+                if (downstream.needsMoreData) {
+                    downstream.pendingRequests.add(request);
                 }
-                distributedResultAction.pushResult(downstream.nodeId, request, new ActionListener<DistributedResultResponse>() {
-                    @Override
-                    public void onResponse(DistributedResultResponse response) {
-                        downstream.needsMoreData = false;
-                        countdownAndMaybeCloseIt(numActiveRequests, it);
-                    }
-
-                    @Override
-                    public void onFailure(Exception e) {
-                        if (traceEnabled) {
-                            logger.trace("Error sending failure to downstream={} targetPhase={}/{} bucket={}", e,
-                                downstream.nodeId, targetPhaseId, inputId, bucketIdx);
-                        }
-                        countdownAndMaybeCloseIt(numActiveRequests, it);
-                    }
-                });
             }
         }
+        sendToAll(it);
+        closeIfDrained(it);
     }
 
-    private void countdownAndMaybeCloseIt(AtomicInteger numActiveRequests, @Nullable BatchIterator it) {
-        if (numActiveRequests.decrementAndGet() == 0) {
-            if (it != null) {
-                it.close();
+    /**
+     * Queues the current page for all downstreams which need more data.
+     *
+     * @return true if the consumption of the source can continue
+     */
+    private boolean forwardResults(BatchIterator it, boolean isLast) {
+        Throwable failure = this.failure;
+        if (failure != null) {
+            forwardFailure(it, failure);
+            return false;
+        }
+        multiBucketBuilder.build(buckets);
+
+        boolean continueConsumption;
+        synchronized (lock) {
+            for (int i = 0; i < downstreams.size(); i++) {
+                Downstream downstream = downstreams.get(i);
+                if (downstream.needsMoreData) {
+                    downstream.pendingRequests.add(
+                        new DistributedResultRequest(jobId, targetPhaseId, inputId, bucketIdx, streamers, buckets[i], isLast));
+                }
             }
+            if (isLast || noDownstreamNeedsData()) {
+                state = State.FINISHED;
+            } else if (downstreamBufferIsFull()) {
+                state = State.PAUSED;
+            }
+            continueConsumption = state == State.CONSUMING;
+        }
+        sendToAll(it);
+        if (continueConsumption == false) {
+            closeIfDrained(it);
         }
+        return continueConsumption;
     }
 
-    private void forwardResults(BatchIterator it, boolean isLast) {
-        multiBucketBuilder.build(buckets);
+    private void sendToAll(@Nullable BatchIterator it) {
+        for (Downstream downstream : downstreams) {
+            sendNext(downstream, it);
+        }
+    }
 
-        AtomicInteger numActiveRequests = new AtomicInteger(downstreams.size());
-        for (int i = 0; i < downstreams.size(); i++) {
-            Downstream downstream = downstreams.get(i);
-            if (downstream.needsMoreData == false) {
-                countdownAndMaybeContinue(it, numActiveRequests, true);
-                continue;
+    private void sendNext(Downstream downstream, @Nullable BatchIterator it) {
+        DistributedResultRequest request;
+        synchronized (lock) {
+            if (downstream.requestInFlight || downstream.pendingRequests.isEmpty()) {
+                return;
             }
+            request = downstream.pendingRequests.poll();
+            downstream.requestInFlight = true;
+        }
+        if (request.throwable() == null) {
             if (traceEnabled) {
                 logger.trace("forwardResults targetNode={} targetPhase={}/{} bucket={} isLast={}",
-                    downstream.nodeId, targetPhaseId, inputId, bucketIdx, isLast);
+                    downstream.nodeId, targetPhaseId, inputId, bucketIdx, request.isLast());
             }
-            distributedResultAction.pushResult(
-                downstream.nodeId,
-                new DistributedResultRequest(jobId, targetPhaseId, inputId, bucketIdx, streamers, buckets[i], isLast),
-                new ActionListener<DistributedResultResponse>() {
-                    @Override
-                    public void onResponse(DistributedResultResponse response) {
-                        downstream.needsMoreData = response.needMore();
-                        countdownAndMaybeContinue(it, numActiveRequests, false);
-                    }
+            distributedResultAction.pushResult(downstream.nodeId, request, new ActionListener<DistributedResultResponse>() {
+                @Override
+                public void onResponse(DistributedResultResponse response) {
+                    onRequestDone(downstream, it, response.needMore());
+                }
+
+                @Override
+                public void onFailure(Exception e) {
+                    failure = e;
+                    // continue because it's necessary to send something to downstreams still waiting for data
+                    onRequestDone(downstream, it, false);
+                }
+            });
+        } else {
+            if (traceEnabled) {
+                logger.trace("forwardFailure targetNode={} targetPhase={}/{} bucket={} failure={}",
+                    downstream.nodeId, targetPhaseId, inputId, bucketIdx, request.throwable());
+            }
+            distributedResultAction.pushResult(downstream.nodeId, request, new ActionListener<DistributedResultResponse>() {
+                @Override
+                public void onResponse(DistributedResultResponse response) {
+                    onRequestDone(downstream, it, false);
+                }
 
-                    @Override
-                    public void onFailure(Exception e) {
-                        failure = e;
-                        downstream.needsMoreData = false;
-                        // continue because it's necessary to send something to downstreams still waiting for data
-                        countdownAndMaybeContinue(it, numActiveRequests, false);
+                @Override
+                public void onFailure(Exception e) {
+                    if (traceEnabled) {
+                        logger.trace("Error sending failure to downstream={} targetPhase={}/{} bucket={}", e,
+                            downstream.nodeId, targetPhaseId, inputId, bucketIdx);
                     }
+                    onRequestDone(downstream, it, false);
                 }
-            );
+            });
         }
     }
 
-    private void countdownAndMaybeContinue(BatchIterator it, AtomicInteger numActiveRequests, boolean sameExecutor) {
-        if (numActiveRequests.decrementAndGet() == 0) {
-            if (downstreams.stream().anyMatch(Downstream::needsMoreData)) {
-                if (failure == null) {
-                    if (sameExecutor) {
-                        consumeIt(it);
-                    } else {
-                        // try to dispatch to different executor, if it fails, forward the error in the same thread
-                        try {
-                            responseExecutor.execute(() -> consumeIt(it));
-                        } catch (EsRejectedExecutionException e) {
-                            failure = e;
-                            forwardFailure(it, failure);
-                        }
-                    }
-                } else {
-                    forwardFailure(it, failure);
+    private void onRequestDone(Downstream downstream, @Nullable BatchIterator it, boolean needsMoreData) {
+        boolean resume = false;
+        synchronized (lock) {
+            downstream.requestInFlight = false;
+            downstream.needsMoreData = needsMoreData;
+            if (needsMoreData == false) {
+                downstream.pendingRequests.clear();
+            }
+            if (state == State.PAUSED &&
+                (failure != null || noDownstreamNeedsData() || downstreamBufferIsFull() == false)) {
+                state = State.CONSUMING;
+                resume = true;
+            }
+        }
+        sendNext(downstream, it);
+        if (resume) {
+            assert it != null : "a paused consumer must have an iterator";
+            // try to dispatch to different executor, if it fails, forward the error in the same thread
+            try {
+                responseExecutor.execute(() -> resume(it));
+            } catch (EsRejectedExecutionException e) {
+                failure = e;
+                forwardFailure(it, e);
+            }
+        } else {
+            closeIfDrained(it);
+        }
+    }
+
+    private void resume(BatchIterator it) {
+        Throwable failure = this.failure;
+        if (failure != null) {
+            forwardFailure(it, failure);
+            return;
+        }
+        boolean finished;
+        synchronized (lock) {
+            finished = noDownstreamNeedsData();
+            if (finished) {
+                state = State.FINISHED;
+            }
+        }
+        if (finished) {
+            closeIfDrained(it);
+        } else {
+            consumeIt(it);
+        }
+    }
+
+    private void closeIfDrained(@Nullable BatchIterator it) {
+        synchronized (lock) {
+            if (state != State.FINISHED) {
+                return;
+            }
+            for (Downstream downstream : downstreams) {
+                if (downstream.requestInFlight || downstream.pendingRequests.isEmpty() == false) {
+                    return;
                 }
-            } else {
-                it.close();
+            }
+            state = State.CLOSED;
+        }
+        if (it != null) {
+            it.close();
+        }
+    }
+
+    private boolean noDownstreamNeedsData() {
+        for (Downstream downstream : downstreams) {
+            if (downstream.needsMoreData) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean downstreamBufferIsFull() {
+        for (Downstream downstream : downstreams) {
+            if (downstream.needsMoreData && downstream.numBufferedPages() >= MAX_BUFFERED_PAGES) {
+                return true;
             }
         }
+        return false;
     }
 
     private static class Downstream {
 
         private final String nodeId;
+        private final ArrayDeque<DistributedResultRequest> pendingRequests = new ArrayDeque<>();
         private boolean needsMoreData = true;
+        private boolean requestInFlight = false;
 
         Downstream(String nodeId) {
             this.nodeId = nodeId;
         }
 
-        boolean needsMoreData() {
-            return needsMoreData;
+        int numBufferedPages() {
+            return pendingRequests.size() + (requestInFlight ? 1 : 0);
         }
     }
 }
@@ -29,11 +29,17 @@ import io.crate.breaker.RamAccountingContext;
 import io.crate.data.BatchConsumer;
 import io.crate.data.Bucket;
 import io.crate.data.Row;
+import io.crate.executor.transport.StreamBucket;
 import io.crate.operation.PageResultListener;
 import io.crate.operation.merge.BatchPagingIterator;
 import io.crate.operation.merge.KeyIterable;
 import io.crate.operation.merge.PagingIterator;
+import io.crate.settings.CrateSetting;
+import io.crate.types.DataTypes;
 import org.apache.logging.log4j.Logger;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -41,9 +47,27 @@ import java.util.ArrayList;
 import java.util.BitSet;
 import java.util.List;
 import java.util.Locale;
-
+import java.util.concurrent.Executor;
+
+/**
+ * Receives the pages of all upstreams and merges them once a page of every upstream has been received.
+ * <p>
+ * If a {@code prefetchExecutor} is given, the next page of an upstream is requested as soon as its current page
+ * arrived and is kept until the consumer needs it. So at most one page per upstream is buffered in addition to the
+ * current one, the buffered pages are accounted in the {@link RamAccountingContext}.
+ * A buffered page is processed on the {@code prefetchExecutor}, as it is requested from within the consumer's
+ * {@code loadNextBatch} call and processing it completes that load.
+ * Only pages are buffered, a failure of an upstream which answers a prefetch request fails the consumer right away.
+ * If the consumer is done while prefetch requests are outstanding, the context is kept open until they are answered,
+ * so that the upstreams can still deliver their pages, which are then released.
+ * </p>
+ */
 public class PageDownstreamContext extends AbstractExecutionSubContext implements DownstreamExecutionSubContext, PageBucketReceiver {
 
+    public static final CrateSetting<Boolean> PREFETCH_SETTING = CrateSetting.of(Setting.boolSetting(
+        "distributed.prefetch", true,
+        Setting.Property.NodeScope), DataTypes.BOOLEAN);
+
     private final String name;
     private final Object lock = new Object();
     private final String nodeName;
@@ -57,8 +81,25 @@ public class PageDownstreamContext extends AbstractExecutionSubContext implement
     private final IntObjectHashMap<Bucket> bucketsByIdx;
     private final BatchConsumer consumer;
     private final BatchPagingIterator<Integer> batchPagingIterator;
+    private final boolean prefetch;
+    @Nullable
+    private final Executor prefetchExecutor;
+
+    /**
+     * upstreams which have been asked for their next page before the consumer needed it
+     */
+    private final BitSet prefetchRequested;
+    private final IntObjectHashMap<PrefetchedPage> prefetchedPages;
 
     private Throwable lastThrowable = null;
+    private volatile boolean listenersReleased = false;
+
+    /**
+     * set if the context has been released while prefetch requests were outstanding, it is closed once they are answered
+     */
+    private boolean closeDeferred = false;
+    @Nullable
+    private Throwable deferredCloseThrowable = null;
     private volatile boolean receivingFirstPage = true;
 
     public PageDownstreamContext(Logger logger,
@@ -70,6 +111,19 @@ public class PageDownstreamContext extends AbstractExecutionSubContext implement
                                  Streamer<?>[] streamers,
                                  RamAccountingContext ramAccountingContext,
                                  int numBuckets) {
+        this(logger, nodeName, id, name, batchConsumer, pagingIterator, streamers, ramAccountingContext, numBuckets, null);
+    }
+
+    public PageDownstreamContext(Logger logger,
+                                 String nodeName,
+                                 int id,
+                                 String name,
+                                 BatchConsumer batchConsumer,
+                                 PagingIterator<Integer, Row> pagingIterator,
+                                 Streamer<?>[] streamers,
+                                 RamAccountingContext ramAccountingContext,
+                                 int numBuckets,
+                                 @Nullable Executor prefetchExecutor) {
         super(id, logger);
         this.nodeName = nodeName;
         this.name = name;
@@ -81,6 +135,10 @@ public class PageDownstreamContext extends AbstractExecutionSubContext implement
         this.pagingIterator = pagingIterator;
         this.bucketsByIdx = new IntObjectHashMap<>(numBuckets);
         this.listenersByBucketIdx = new IntObjectHashMap<>(numBuckets);
+        this.prefetch = prefetchExecutor != null;
+        this.prefetchExecutor = prefetchExecutor;
+        this.prefetchRequested = new BitSet(numBuckets);
+        this.prefetchedPages = new IntObjectHashMap<>();
         batchPagingIterator = new BatchPagingIterator<>(
             pagingIterator,
             this::fetchMore,
@@ -96,7 +154,48 @@ public class PageDownstreamContext extends AbstractExecutionSubContext implement
             cursor.value.needMore(false);
         }
         listenersByBucketIdx.clear();
-        close(throwable);
+        List<PrefetchedPage> unusedPages;
+        boolean deferClose;
+        synchronized (lock) {
+            listenersReleased = true;
+            if (throwable == null) {
+                // the consumer closes the iterator after it has been failed by an upstream failure
+                throwable = lastThrowable;
+            }
+            unusedPages = new ArrayList<>(prefetchedPages.size());
+            for (ObjectCursor<PrefetchedPage> cursor : prefetchedPages.values()) {
+                unusedPages.add(cursor.value);
+            }
+            prefetchedPages.clear();
+
+            // the upstreams which have been asked for their next page will still send it,
+            // the context must not be removed before they did so
+            deferClose = prefetchRequested.isEmpty() == false;
+            if (deferClose && closeDeferred == false) {
+                closeDeferred = true;
+                deferredCloseThrowable = throwable;
+            }
+        }
+        for (PrefetchedPage page : unusedPages) {
+            ramAccountingContext.addBytesWithoutBreaking(-page.ramBytesUsed());
+            page.release();
+        }
+        if (deferClose == false) {
+            close(throwable);
+        }
+    }
+
+    /**
+     * Must be called while holding the lock after an outstanding prefetch request has been answered.
+     *
+     * @return true if the context has been released and was only kept open for the outstanding prefetch requests
+     */
+    private boolean isDeferredCloseDue() {
+        if (closeDeferred && prefetchRequested.isEmpty()) {
+            closeDeferred = false;
+            return true;
+        }
+        return false;
     }
 
     private boolean allUpstreamsExhausted() {
@@ -105,15 +204,26 @@ public class PageDownstreamContext extends AbstractExecutionSubContext implement
 
     @Override
     public void setBucket(int bucketIdx, Bucket rows, boolean isLast, PageResultListener pageResultListener) {
+        if (prefetchPage(bucketIdx, new PrefetchedPage(rows, isLast, pageResultListener))) {
+            return;
+        }
+        boolean prefetchNextPage = false;
         synchronized (listenersByBucketIdx) {
-            if (lastThrowable == null) {
-                listenersByBucketIdx.put(bucketIdx, pageResultListener);
+            if (lastThrowable == null && listenersReleased == false) {
+                if (prefetch && isLast == false) {
+                    prefetchNextPage = true;
+                } else {
+                    listenersByBucketIdx.put(bucketIdx, pageResultListener);
+                }
             } else {
                 pageResultListener.needMore(false);
             }
         }
         boolean shouldTriggerConsumer = false;
         synchronized (lock) {
+            if (prefetchNextPage) {
+                prefetchRequested.set(bucketIdx);
+            }
             traceLog("method=setBucket", bucketIdx);
 
             if (bucketsByIdx.putIfAbsent(bucketIdx, rows) == false) {
@@ -129,11 +239,89 @@ public class PageDownstreamContext extends AbstractExecutionSubContext implement
                 shouldTriggerConsumer = true;
             }
         }
+        if (prefetchNextPage) {
+            pageResultListener.needMore(true);
+        }
         if (shouldTriggerConsumer) {
             mergeAndTriggerConsumer();
         }
     }
 
+    /**
+     * Keeps the page if it is the response to a prefetch request, it is processed once the consumer needs it.
+     *
+     * @return true if the page has been consumed by the prefetching and must not be processed
+     */
+    private boolean prefetchPage(int bucketIdx, PrefetchedPage page) {
+        CircuitBreakingException circuitBreakingException = null;
+        boolean closeContext = false;
+        Throwable closeThrowable = null;
+        synchronized (lock) {
+            if (prefetchRequested.get(bucketIdx) == false) {
+                return false;
+            }
+            prefetchRequested.clear(bucketIdx);
+            if (lastThrowable == null && listenersReleased == false) {
+                traceLog("method=prefetchPage", bucketIdx);
+                prefetchedPages.put(bucketIdx, page);
+                try {
+                    ramAccountingContext.addBytes(page.ramBytesUsed());
+                } catch (CircuitBreakingException e) {
+                    circuitBreakingException = e;
+                }
+                page = null;
+            } else if (isDeferredCloseDue()) {
+                closeContext = true;
+                closeThrowable = deferredCloseThrowable;
+            }
+        }
+        if (page != null) {
+            page.release();
+        }
+        if (circuitBreakingException != null) {
+            kill(circuitBreakingException);
+        }
+        if (closeContext) {
+            close(closeThrowable);
+        }
+        return true;
+    }
+
+    /**
+     * Handles the failure of an upstream if it is the response to a prefetch request.
+     * The failure isn't kept like a page, the consumer is failed right away.
+     *
+     * @return true if the failure has been handled and must not be processed
+     */
+    private boolean prefetchFailure(int bucketIdx, Throwable throwable) {
+        boolean killIterator = false;
+        boolean closeContext = false;
+        Throwable closeThrowable = null;
+        synchronized (lock) {
+            if (prefetchRequested.get(bucketIdx) == false) {
+                return false;
+            }
+            prefetchRequested.clear(bucketIdx);
+            if (listenersReleased == false) {
+                // the current page of the upstream may not have been merged yet, so no bucket is set
+                setBucketFailure(bucketIdx, throwable);
+                killIterator = true;
+            } else if (isDeferredCloseDue()) {
+                closeContext = true;
+                closeThrowable = deferredCloseThrowable;
+            }
+        }
+        if (killIterator) {
+            // this causes an already active consumer to fail, a consumer which isn't active yet
+            // receives the failure once the other upstreams delivered their pages
+            batchPagingIterator.kill(throwable);
+        }
+        if (closeContext) {
+            close(closeThrowable);
+        }
+        return true;
+    }
+
     private void triggerConsumer() {
         boolean invokeConsumer = false;
         Throwable throwable;
@@ -194,8 +382,7 @@ public class PageDownstreamContext extends AbstractExecutionSubContext implement
                 setToEmptyBucket(i);
             }
         }
-        PageResultListener pageResultListener = listenersByBucketIdx.remove(exhaustedBucket);
-        pageResultListener.needMore(true);
+        fetchNextPage(exhaustedBucket);
     }
 
     private void fetchFromUnExhausted() {
@@ -203,12 +390,42 @@ public class PageDownstreamContext extends AbstractExecutionSubContext implement
             if (exhausted.get(idx)) {
                 setToEmptyBucket(idx);
             } else {
-                PageResultListener resultListener = listenersByBucketIdx.remove(idx);
-                resultListener.needMore(true);
+                fetchNextPage(idx);
             }
         }
     }
 
+    private void fetchNextPage(int bucketIdx) {
+        PrefetchedPage page;
+        synchronized (lock) {
+            page = prefetchedPages.remove(bucketIdx);
+            if (page == null && prefetchRequested.get(bucketIdx)) {
+                // page is already on its way, it will be processed like a requested page once it arrives
+                prefetchRequested.clear(bucketIdx);
+                return;
+            }
+        }
+        if (page == null) {
+            PageResultListener resultListener = listenersByBucketIdx.remove(bucketIdx);
+            resultListener.needMore(true);
+        } else {
+            processPrefetchedPage(bucketIdx, page);
+        }
+    }
+
+    private void processPrefetchedPage(int bucketIdx, PrefetchedPage page) {
+        assert prefetchExecutor != null : "prefetchExecutor must not be null if pages are prefetched";
+        ramAccountingContext.addBytesWithoutBreaking(-page.ramBytesUsed());
+        // processing the page may complete the current load of the consumer, which is waiting for this page within
+        // its loadNextBatch call. Processing it on the same thread would nest every following load in that call.
+        try {
+            prefetchExecutor.execute(() -> page.process(this, bucketIdx));
+        } catch (EsRejectedExecutionException e) {
+            page.release();
+            failure(bucketIdx, e);
+        }
+    }
+
     private void traceLog(String msg, int bucketIdx) {
         if (traceEnabled) {
             logger.trace("{} phaseId={} bucket={}", msg, id, bucketIdx);
@@ -224,6 +441,9 @@ public class PageDownstreamContext extends AbstractExecutionSubContext implement
     @Override
     public void failure(int bucketIdx, Throwable throwable) {
         traceLog("method=failure", bucketIdx, throwable);
+        if (prefetchFailure(bucketIdx, throwable)) {
+            return;
+        }
 
         boolean shouldTriggerConsumer;
         synchronized (lock) {
@@ -243,6 +463,9 @@ public class PageDownstreamContext extends AbstractExecutionSubContext implement
     @Override
     public void killed(int bucketIdx, Throwable throwable) {
         traceLog("method=killed", bucketIdx, throwable);
+        if (prefetchFailure(bucketIdx, throwable)) {
+            return;
+        }
 
         boolean shouldTriggerConsumer;
         synchronized (lock) {
@@ -341,4 +564,32 @@ public class PageDownstreamContext extends AbstractExecutionSubContext implement
         assert inputId == 0 : "This downstream context only supports 1 input";
         return this;
     }
+
+    /**
+     * A page which has been received before the consumer needed it
+     */
+    private static class PrefetchedPage {
+
+        private final Bucket rows;
+        private final boolean isLast;
+        private final PageResultListener listener;
+
+        PrefetchedPage(Bucket rows, boolean isLast, PageResultListener listener) {
+            this.rows = rows;
+            this.isLast = isLast;
+            this.listener = listener;
+        }
+
+        long ramBytesUsed() {
+            return rows instanceof StreamBucket ? ((StreamBucket) rows).ramBytesUsed() : 0L;
+        }
+
+        void process(PageBucketReceiver receiver, int bucketIdx) {
+            receiver.setBucket(bucketIdx, rows, isLast, listener);
+        }
+
+        void release() {
+            listener.needMore(false);
+        }
+    }
 }
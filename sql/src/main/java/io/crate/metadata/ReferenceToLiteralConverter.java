@@ -25,6 +25,7 @@ package io.crate.metadata;
 import io.crate.analyze.symbol.InputColumn;
 import io.crate.analyze.symbol.Literal;
 import io.crate.analyze.symbol.Symbol;
+import io.crate.data.Input;
 import io.crate.types.DataType;
 import org.elasticsearch.common.xcontent.support.XContentMapValues;
 
@@ -61,7 +62,15 @@ public class ReferenceToLiteralConverter implements Function<Reference, Symbol>
         this.values = values;
     }
 
-    private Symbol resolveReferenceValue(Reference reference) {
+    /**
+     * Returns an input which returns the value of {@code reference} within the values set by {@link #values(Object[])}
+     * at the time {@link Input#value()} is called.
+     */
+    public Input<?> valueInput(Reference reference) {
+        return () -> resolveValue(reference);
+    }
+
+    private Object resolveValue(Reference reference) {
         assert values != null : "values must be set first";
 
         InputColumn inputColumn = referenceInputColumnMap.get(reference);
@@ -79,15 +88,15 @@ public class ReferenceToLiteralConverter implements Function<Reference, Symbol>
             } else {
                 value = values[inputColumn.index()];
             }
-            return Literal.of(dataType, dataType.value(value));
+            return dataType.value(value);
         }
 
-        DataType dataType = reference.valueType();
-        return Literal.of(dataType, dataType.value(null));
+        return reference.valueType().value(null);
     }
 
     @Override
     public Symbol apply(Reference reference) {
-        return resolveReferenceValue(reference);
+        DataType dataType = reference.valueType();
+        return Literal.of(dataType, resolveValue(reference));
     }
 }
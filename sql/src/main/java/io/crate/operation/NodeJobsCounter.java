@@ -22,6 +22,11 @@
 
 package io.crate.operation;
 
+import org.elasticsearch.cluster.ClusterChangedEvent;
+import org.elasticsearch.cluster.ClusterStateListener;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.inject.Singleton;
 
 import javax.annotation.Nullable;
@@ -33,18 +38,75 @@ import java.util.function.BiFunction;
  * Counts how many operations issued from the current node are in progress across the cluster.
  * If the destination node cannot be determined, it counts the in progress operations towards the unknown node.
  * Note: one job can span multiple nodes.
+ * <p>
+ * Additionally it tracks an adaptive limit of concurrent operations per node: The limit grows additively while the
+ * response latency of a node stays stable and shrinks multiplicatively if the node slows down or rejects operations.
+ * The limits of nodes which left the cluster are removed.
+ * </p>
  */
 @Singleton
-public class NodeJobsCounter {
+public class NodeJobsCounter implements ClusterStateListener {
 
     /**
      * Represents the maximum number of concurrent operations that can be issued towards a node.
      */
     public static final long MAX_NODE_CONCURRENT_OPERATIONS = 5;
 
+    static final double MIN_CONCURRENCY_LIMIT = 1;
+    static final double MAX_CONCURRENCY_LIMIT = 25;
+
+    /**
+     * A response which takes longer than this factor times the average latency of the node indicates a slowdown.
+     */
+    private static final double SLOWDOWN_LATENCY_FACTOR = 2.0;
+    private static final double SLOWDOWN_BACKOFF_RATIO = 0.9;
+    private static final double REJECTION_BACKOFF_RATIO = 0.5;
+    private static final double LATENCY_SMOOTHING = 0.1;
+
     private long unknownNodeCount = 0L;
     // Using single element long[] to avoid autoboxing
     private final Map<String, long[]> operationsCountPerNode = new ConcurrentHashMap<>();
+    private final Map<String, ConcurrencyLimit> concurrencyLimitPerNode = new ConcurrentHashMap<>();
+
+    private static class ConcurrencyLimit {
+
+        private volatile double limit = MAX_NODE_CONCURRENT_OPERATIONS;
+        private double avgLatencyNanos = -1;
+
+        synchronized void onResponse(long latencyNanos) {
+            if (avgLatencyNanos < 0) {
+                avgLatencyNanos = latencyNanos;
+            }
+            if (latencyNanos > avgLatencyNanos * SLOWDOWN_LATENCY_FACTOR) {
+                limit = Math.max(MIN_CONCURRENCY_LIMIT, limit * SLOWDOWN_BACKOFF_RATIO);
+            } else {
+                // grows by ~1 once all operations within the limit responded
+                limit = Math.min(MAX_CONCURRENCY_LIMIT, limit + 1 / limit);
+            }
+            avgLatencyNanos += (latencyNanos - avgLatencyNanos) * LATENCY_SMOOTHING;
+        }
+
+        synchronized void onRejection() {
+            limit = Math.max(MIN_CONCURRENCY_LIMIT, limit * REJECTION_BACKOFF_RATIO);
+        }
+    }
+
+    public NodeJobsCounter() {
+    }
+
+    @Inject
+    public NodeJobsCounter(ClusterService clusterService) {
+        clusterService.add(this);
+    }
+
+    @Override
+    public void clusterChanged(ClusterChangedEvent event) {
+        if (event.nodesRemoved()) {
+            for (DiscoveryNode node : event.nodesDelta().removedNodes()) {
+                concurrencyLimitPerNode.remove(node.getId());
+            }
+        }
+    }
 
     private static BiFunction<String, long[], long[]> INCREMENT_COUNTER_FOR_NODE = (node, count) -> {
         if (count == null) {
@@ -83,6 +145,34 @@ public class NodeJobsCounter {
         }
     }
 
+    /**
+     * Adapts the concurrency limit of the node to the latency of a successful operation.
+     *
+     * @param latencyNanos the latency of the attempt which succeeded, without earlier rejected attempts
+     */
+    public void onResponse(@Nullable String nodeId, long latencyNanos) {
+        if (nodeId != null) {
+            concurrencyLimitPerNode.computeIfAbsent(nodeId, id -> new ConcurrencyLimit()).onResponse(latencyNanos);
+        }
+    }
+
+    /**
+     * Reduces the concurrency limit of the node because it rejected an operation.
+     */
+    public void onRejection(@Nullable String nodeId) {
+        if (nodeId != null) {
+            concurrencyLimitPerNode.computeIfAbsent(nodeId, id -> new ConcurrencyLimit()).onRejection();
+        }
+    }
+
+    /**
+     * @return the maximum number of concurrent operations which should be issued towards the node
+     */
+    public long getConcurrencyLimitForNode(@Nullable String nodeId) {
+        ConcurrencyLimit concurrencyLimit = nodeId == null ? null : concurrencyLimitPerNode.get(nodeId);
+        return concurrencyLimit == null ? MAX_NODE_CONCURRENT_OPERATIONS : (long) concurrencyLimit.limit;
+    }
+
     public long getInProgressJobsForNode(@Nullable String nodeId) {
         long count;
         if (nodeId == null) {
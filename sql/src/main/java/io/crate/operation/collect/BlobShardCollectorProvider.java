@@ -33,6 +33,7 @@ import io.crate.operation.InputFactory;
 import io.crate.operation.NodeJobsCounter;
 import io.crate.operation.collect.collectors.BlobOrderedDocCollector;
 import io.crate.operation.collect.collectors.OrderedDocCollector;
+import io.crate.operation.collect.collectors.TopNCutoff;
 import io.crate.operation.reference.doc.blob.BlobReferenceResolver;
 import io.crate.planner.node.dql.RoutedCollectPhase;
 import org.elasticsearch.cluster.metadata.IndexNameExpressionResolver;
@@ -40,6 +41,7 @@ import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.threadpool.ThreadPool;
 
+import javax.annotation.Nullable;
 import java.io.File;
 
 public class BlobShardCollectorProvider extends ShardCollectorProvider {
@@ -80,7 +82,8 @@ public class BlobShardCollectorProvider extends ShardCollectorProvider {
     public OrderedDocCollector getOrderedCollector(RoutedCollectPhase collectPhase,
                                                    SharedShardContext sharedShardContext,
                                                    JobCollectContext jobCollectContext,
-                                                   boolean requiresRepeat) {
+                                                   boolean requiresRepeat,
+                                                   @Nullable TopNCutoff topNCutoff) {
         RoutedCollectPhase normalizedCollectPhase = collectPhase.normalize(shardNormalizer, null);
         return new BlobOrderedDocCollector(blobShard.indexShard().shardId(), getBlobRows(normalizedCollectPhase, requiresRepeat));
     }
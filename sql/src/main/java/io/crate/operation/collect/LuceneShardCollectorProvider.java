@@ -37,6 +37,7 @@ import io.crate.operation.collect.collectors.CollectorFieldsVisitor;
 import io.crate.operation.collect.collectors.CrateDocCollectorBuilder;
 import io.crate.operation.collect.collectors.LuceneOrderedDocCollector;
 import io.crate.operation.collect.collectors.OrderedDocCollector;
+import io.crate.operation.collect.collectors.TopNCutoff;
 import io.crate.operation.reference.doc.lucene.CollectorContext;
 import io.crate.operation.reference.doc.lucene.LuceneCollectorExpression;
 import io.crate.operation.reference.doc.lucene.LuceneReferenceResolver;
@@ -52,6 +53,8 @@ import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.threadpool.ThreadPool;
 
+import javax.annotation.Nullable;
+
 public class LuceneShardCollectorProvider extends ShardCollectorProvider {
 
     private static final Logger LOGGER = Loggers.getLogger(LuceneShardCollectorProvider.class);
@@ -123,7 +126,8 @@ public class LuceneShardCollectorProvider extends ShardCollectorProvider {
     public OrderedDocCollector getOrderedCollector(RoutedCollectPhase phase,
                                                    SharedShardContext sharedShardContext,
                                                    JobCollectContext jobCollectContext,
-                                                   boolean requiresRepeat) {
+                                                   boolean requiresRepeat,
+                                                   @Nullable TopNCutoff topNCutoff) {
         RoutedCollectPhase collectPhase = phase.normalize(shardNormalizer, null);
 
         CollectorContext collectorContext;
@@ -169,7 +173,8 @@ public class LuceneShardCollectorProvider extends ShardCollectorProvider {
             collectPhase.orderBy(),
             LuceneSortGenerator.generateLuceneSort(collectorContext, collectPhase.orderBy(), docInputFactory, fieldTypeLookup),
             ctx.topLevelInputs(),
-            ctx.expressions()
+            ctx.expressions(),
+            topNCutoff
         );
     }
 
@@ -35,6 +35,7 @@ import io.crate.metadata.RowGranularity;
 import io.crate.operation.InputFactory;
 import io.crate.operation.NodeJobsCounter;
 import io.crate.operation.collect.collectors.OrderedDocCollector;
+import io.crate.operation.collect.collectors.TopNCutoff;
 import io.crate.operation.projectors.ProjectingBatchConsumer;
 import io.crate.operation.projectors.ProjectionToProjectorVisitor;
 import io.crate.operation.projectors.ProjectorFactory;
@@ -163,8 +164,12 @@ public abstract class ShardCollectorProvider {
                                                          JobCollectContext jobCollectContext);
 
 
+    /**
+     * @param topNCutoff shared by the collectors of all shards of the node if the node emits at most N rows
+     */
     public abstract OrderedDocCollector getOrderedCollector(RoutedCollectPhase collectPhase,
                                                             SharedShardContext sharedShardContext,
                                                             JobCollectContext jobCollectContext,
-                                                            boolean requiresRepeat);
+                                                            boolean requiresRepeat,
+                                                            @Nullable TopNCutoff topNCutoff);
 }
@@ -81,6 +81,9 @@ public class LuceneOrderedDocCollector extends OrderedDocCollector {
 
     private final Object[] missingValues;
 
+    @Nullable
+    private final TopNCutoff topNCutoff;
+
     @Nullable
     private volatile FieldDoc lastDoc = null;
 
@@ -96,7 +99,8 @@ public class LuceneOrderedDocCollector extends OrderedDocCollector {
                                      OrderBy orderBy,
                                      Sort sort,
                                      List<? extends Input<?>> inputs,
-                                     Collection<? extends LuceneCollectorExpression<?>> expressions) {
+                                     Collection<? extends LuceneCollectorExpression<?>> expressions,
+                                     @Nullable TopNCutoff topNCutoff) {
         super(shardId);
         this.searcher = searcher;
         this.query = query;
@@ -110,6 +114,7 @@ public class LuceneOrderedDocCollector extends OrderedDocCollector {
         this.sort = sort;
         this.scorer = new DummyScorer();
         this.expressions = expressions;
+        this.topNCutoff = topNCutoff;
         this.rowFunction = new ScoreDocRowFunction(
             searcher.getIndexReader(),
             inputs,
@@ -157,7 +162,7 @@ public class LuceneOrderedDocCollector extends OrderedDocCollector {
         if (minScore != null) {
             collector = new MinimumScoreCollector(collector, minScore);
         }
-        searcher.search(query, collector);
+        searcher.search(withCutoff(query), collector);
         return scoreDocToIterable(topFieldCollector.topDocs().scoreDocs);
     }
 
@@ -167,7 +172,7 @@ public class LuceneOrderedDocCollector extends OrderedDocCollector {
             return empty();
         }
         LOGGER.debug("searchMore from [{}]", lastDoc);
-        TopDocs topDocs = searcher.searchAfter(lastDoc, query(lastDoc), batchSize, sort, doDocsScores, false);
+        TopDocs topDocs = searcher.searchAfter(lastDoc, withCutoff(query(lastDoc)), batchSize, sort, doDocsScores, false);
         return scoreDocToIterable(topDocs.scoreDocs);
     }
 
@@ -176,6 +181,9 @@ public class LuceneOrderedDocCollector extends OrderedDocCollector {
         if (scoreDocs.length > 0) {
             lastDoc = (FieldDoc) scoreDocs[scoreDocs.length - 1];
         }
+        if (topNCutoff != null) {
+            topNCutoff.offer(scoreDocs);
+        }
         return new KeyIterable<>(shardId(), Iterables.transform(Arrays.asList(scoreDocs), rowFunction));
     }
 
@@ -190,6 +198,70 @@ public class LuceneOrderedDocCollector extends OrderedDocCollector {
         return searchAfterQuery.build();
     }
 
+    /**
+     * Excludes the docs which sort after the cutoff of the top N docs of all shards, if there is one
+     */
+    private Query withCutoff(Query query) {
+        if (topNCutoff == null) {
+            return query;
+        }
+        FieldDoc cutoff = topNCutoff.cutoff();
+        if (cutoff == null) {
+            return query;
+        }
+        Query cutoffQuery = cutoffQuery(cutoff.fields[0], orderBy, missingValues[0], fieldTypeLookup, queryShardContext);
+        if (cutoffQuery == null) {
+            return query;
+        }
+        BooleanQuery.Builder queryWithCutoff = new BooleanQuery.Builder();
+        queryWithCutoff.add(query, BooleanClause.Occur.MUST);
+        queryWithCutoff.add(cutoffQuery, BooleanClause.Occur.FILTER);
+        return queryWithCutoff.build();
+    }
+
+    /**
+     * @return a query which matches the docs which don't sort after the given value of the first ORDER BY column
+     *         or null if no such query can be built
+     */
+    @Nullable
+    @VisibleForTesting
+    static Query cutoffQuery(@Nullable Object cutoffValue,
+                             OrderBy orderBy,
+                             @Nullable Object missingValue,
+                             FieldTypeLookup fieldTypeLookup,
+                             QueryShardContext queryShardContext) {
+        Symbol order = orderBy.orderBySymbols().get(0);
+        if (!(order instanceof Reference)) {
+            return null;
+        }
+        ColumnIdent columnIdent = ((Reference) order).ident().columnIdent();
+        if (columnIdent.isSystemColumn() || cutoffValue == null || cutoffValue.equals(missingValue)) {
+            // a null cutoff would require to filter on the existence of values
+            return null;
+        }
+        MappedFieldType fieldType = fieldTypeLookup.get(columnIdent.fqn());
+        if (fieldType == null) {
+            return null;
+        }
+        boolean reverseFlag = orderBy.reverseFlags()[0];
+        Boolean nullsFirst = orderBy.nullsFirst()[0];
+        if (nullsFirst == null ? reverseFlag : nullsFirst) {
+            // nulls sort before the cutoff and must be kept
+            BooleanQuery.Builder booleanQuery = new BooleanQuery.Builder();
+            booleanQuery.add(new MatchAllDocsQuery(), BooleanClause.Occur.MUST);
+            if (reverseFlag) {
+                booleanQuery.add(fieldType.rangeQuery(null, cutoffValue, false, false, queryShardContext), BooleanClause.Occur.MUST_NOT);
+            } else {
+                booleanQuery.add(fieldType.rangeQuery(cutoffValue, null, false, false, queryShardContext), BooleanClause.Occur.MUST_NOT);
+            }
+            return booleanQuery.build();
+        }
+        if (reverseFlag) {
+            return fieldType.rangeQuery(cutoffValue, null, true, true, queryShardContext);
+        }
+        return fieldType.rangeQuery(null, cutoffValue, true, true, queryShardContext);
+    }
+
     @Nullable
     @VisibleForTesting
     static Query nextPageQuery(FieldDoc lastCollected,
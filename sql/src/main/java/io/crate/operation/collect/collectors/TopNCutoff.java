@@ -0,0 +1,104 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.operation.collect.collectors;
+
+import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.ScoreDoc;
+
+import javax.annotation.Nullable;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+
+/**
+ * Tracks the top {@code limit} values of the first ORDER BY column of the rows which the
+ * {@link LuceneOrderedDocCollector}s of all shards of a node collected so far.
+ * <p>
+ * If a node can't emit more than {@code limit} rows, rows which sort after the {@code limit}-th value can't be part
+ * of its result, so the collectors can exclude them from their searches.
+ * </p>
+ */
+public class TopNCutoff {
+
+    private final int limit;
+    private final Comparator<FieldDoc> comparator;
+
+    /**
+     * the worst of the best values is on top
+     */
+    private final PriorityQueue<FieldDoc> topDocs;
+
+    @Nullable
+    private volatile FieldDoc cutoff = null;
+
+    public TopNCutoff(int limit, boolean reverseFlag) {
+        assert limit > 0 : "limit must be greater than 0";
+        this.limit = limit;
+        Comparator<FieldDoc> comparator = (o1, o2) -> compareValues(o1.fields[0], o2.fields[0]);
+        this.comparator = reverseFlag ? comparator.reversed() : comparator;
+        this.topDocs = new PriorityQueue<>(limit, this.comparator.reversed());
+    }
+
+    /**
+     * @param scoreDocs the sorted docs of a batch, the fields of the docs must contain the sort values
+     */
+    public synchronized void offer(ScoreDoc[] scoreDocs) {
+        for (ScoreDoc scoreDoc : scoreDocs) {
+            FieldDoc doc = (FieldDoc) scoreDoc;
+            if (topDocs.size() < limit) {
+                topDocs.add(doc);
+            } else if (comparator.compare(doc, topDocs.peek()) < 0) {
+                topDocs.poll();
+                topDocs.add(doc);
+            } else {
+                // the docs are sorted, so none of the following docs can be better
+                break;
+            }
+        }
+        if (topDocs.size() == limit) {
+            cutoff = topDocs.peek();
+        }
+    }
+
+    /**
+     * @return the doc whose first sort value is the cutoff or null if less than {@code limit} docs have been offered
+     */
+    @Nullable
+    public FieldDoc cutoff() {
+        return cutoff;
+    }
+
+    /**
+     * Compares the raw values of a {@link FieldDoc}; missing values have already been replaced by values which sort
+     * as the nulls should, except for the smallest string, which is null.
+     */
+    @SuppressWarnings("unchecked")
+    private static int compareValues(@Nullable Object o1, @Nullable Object o2) {
+        if (o1 == null) {
+            return o2 == null ? 0 : -1;
+        }
+        if (o2 == null) {
+            return 1;
+        }
+        return ((Comparable<Object>) o1).compareTo(o2);
+    }
+}
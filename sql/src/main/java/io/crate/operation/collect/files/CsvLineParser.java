@@ -0,0 +1,151 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.operation.collect.files;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Parses the records of a CSV file (RFC 4180) into maps of column name to value.
+ * <p>
+ * The first record of a file is the header which contains the column names.
+ * Fields are separated by commas and may be enclosed in double quotes, in which case they can contain commas,
+ * line breaks and escaped double quotes ({@code ""}). Values are returned as strings, they are not converted
+ * to the types of the columns they are imported into. Empty unquoted fields are treated as missing values.
+ * </p>
+ */
+class CsvLineParser {
+
+    private static final char DELIMITER = ',';
+    private static final char QUOTE = '"';
+
+    private List<String> header = null;
+
+    boolean hasHeader() {
+        return header != null;
+    }
+
+    void parseHeader(String record) {
+        List<String> columns = new ArrayList<>();
+        tokenize(record, columns);
+        if (columns.contains(null)) {
+            throw new IllegalArgumentException("Column names in the CSV header must not be empty");
+        }
+        header = columns;
+    }
+
+    Map<String, Object> parse(String record) {
+        assert header != null : "header must be parsed before the records";
+        List<String> values = new ArrayList<>(header.size());
+        tokenize(record, values);
+        if (values.size() > header.size()) {
+            throw new IllegalArgumentException(String.format(Locale.ENGLISH,
+                "Number of values (%d) exceeds the number of columns in the CSV header (%d)",
+                values.size(), header.size()));
+        }
+        Map<String, Object> row = new LinkedHashMap<>(values.size());
+        for (int i = 0; i < values.size(); i++) {
+            String value = values.get(i);
+            if (value != null) {
+                row.put(header.get(i), value);
+            }
+        }
+        return row;
+    }
+
+    /**
+     * Tracks whether a record continues on the next line, one line at a time.
+     * An escaped quote ({@code ""}) toggles the state twice, so it doesn't need to be treated specially.
+     *
+     * @param quoted true if the line starts within a quoted field, i.e. the previous line ended within one.
+     * @return true if the line ends within a quoted field and so the record continues on the next line.
+     */
+    static boolean endsQuoted(String line, boolean quoted) {
+        for (int i = 0; i < line.length(); i++) {
+            if (line.charAt(i) == QUOTE) {
+                quoted = !quoted;
+            }
+        }
+        return quoted;
+    }
+
+    /**
+     * Splits the record into its fields. Fields are copied out of the record with {@link String#substring},
+     * only quoted fields with escaped quotes are rebuilt using a {@link StringBuilder}.
+     */
+    private static void tokenize(String record, List<String> fields) {
+        int length = record.length();
+        int pos = 0;
+        while (true) {
+            if (pos < length && record.charAt(pos) == QUOTE) {
+                pos = readQuotedField(record, pos + 1, fields);
+            } else {
+                int end = record.indexOf(DELIMITER, pos);
+                if (end == -1) {
+                    end = length;
+                }
+                fields.add(end == pos ? null : record.substring(pos, end));
+                pos = end;
+            }
+            if (pos >= length) {
+                return;
+            }
+            if (record.charAt(pos) != DELIMITER) {
+                throw new IllegalArgumentException(String.format(Locale.ENGLISH,
+                    "Unexpected character '%c' after quoted field at position %d", record.charAt(pos), pos));
+            }
+            pos++;
+        }
+    }
+
+    /**
+     * @return the position after the closing quote
+     */
+    private static int readQuotedField(String record, int start, List<String> fields) {
+        StringBuilder unescaped = null;
+        int pos = start;
+        while (true) {
+            int quote = record.indexOf(QUOTE, pos);
+            if (quote == -1) {
+                throw new IllegalArgumentException("Quoted field isn't terminated");
+            }
+            if (quote + 1 < record.length() && record.charAt(quote + 1) == QUOTE) {
+                if (unescaped == null) {
+                    unescaped = new StringBuilder();
+                }
+                unescaped.append(record, pos, quote + 1);
+                pos = quote + 2;
+            } else {
+                if (unescaped == null) {
+                    fields.add(record.substring(start, quote));
+                } else {
+                    fields.add(unescaped.append(record, pos, quote).toString());
+                }
+                return quote + 1;
+            }
+        }
+    }
+}
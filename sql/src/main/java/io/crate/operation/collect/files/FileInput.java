@@ -43,5 +43,21 @@ public interface FileInput {
 
     InputStream getStream(URI uri) throws IOException;
 
+    /**
+     * @return the size of the file in bytes or -1 if the size is unknown, in which case the file can only be read
+     *         as a whole using {@link #getStream(URI)}.
+     */
+    default long getSize(URI uri) throws IOException {
+        return -1;
+    }
+
+    /**
+     * Returns a stream of the file which starts at the given byte position.
+     * Only supported if {@link #getSize(URI)} returns the size of the file.
+     */
+    default InputStream getStream(URI uri, long position) throws IOException {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " doesn't support reading byte ranges");
+    }
+
     boolean sharedStorageDefault();
 }
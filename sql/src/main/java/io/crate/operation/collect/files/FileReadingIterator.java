@@ -29,6 +29,7 @@ import io.crate.data.CloseAssertingBatchIterator;
 import io.crate.data.Columns;
 import io.crate.data.Input;
 import io.crate.operation.reference.file.LineContext;
+import io.crate.planner.node.dql.FileUriCollectPhase;
 import org.apache.logging.log4j.Logger;
 import org.elasticsearch.ElasticsearchParseException;
 import org.elasticsearch.common.collect.Tuple;
@@ -48,11 +49,11 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.function.Predicate;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
-import java.util.zip.GZIPInputStream;
 
 import static io.crate.exceptions.Exceptions.rethrowUnchecked;
 
@@ -60,11 +61,21 @@ public class FileReadingIterator implements BatchIterator {
 
     private static final Logger LOGGER = Loggers.getLogger(FileReadingIterator.class);
     public static final int MAX_SOCKET_TIMEOUT_RETRIES = 5;
+
+    /**
+     * Uncompressed files on shared storage of at least this size are split into byte ranges which are read by
+     * all readers in parallel, instead of assigning the whole file to a single reader.
+     */
+    static final long MIN_SPLIT_FILE_SIZE = 64 * 1024 * 1024;
+    private static final long WHOLE_FILE = -1L;
+
     private final Map<String, FileInputFactory> fileInputFactories;
     private final Boolean shared;
     private final int numReaders;
     private final int readerNumber;
     private final boolean compressed;
+    private final FileUriCollectPhase.InputFormat inputFormat;
+    private final Executor readAheadExecutor;
 
     private static final Pattern HAS_GLOBS_PATTERN = Pattern.compile("(.*)[^\\\\]\\*.*");
     private static final Predicate<URI> MATCH_ALL_PREDICATE = (URI input) -> true;
@@ -75,7 +86,11 @@ public class FileReadingIterator implements BatchIterator {
     private Tuple<FileInput, UriWithGlob> currentInput = null;
     private Iterator<URI> currentInputIterator = null;
     private URI currentUri;
+    private boolean splitFiles;
+    private long currentRangeStart;
+    private long currentRangeEnd = WHOLE_FILE;
     private BufferedReader currentReader = null;
+    private CsvLineParser currentCsvParser = null;
     private long currentLineNumber;
     private LineContext lineContext;
     private final Columns inputs;
@@ -87,8 +102,12 @@ public class FileReadingIterator implements BatchIterator {
                                 Map<String, FileInputFactory> fileInputFactories,
                                 Boolean shared,
                                 int numReaders,
-                                int readerNumber) {
+                                int readerNumber,
+                                FileUriCollectPhase.InputFormat inputFormat,
+                                Executor readAheadExecutor) {
         this.compressed = compression != null && compression.equalsIgnoreCase("gzip");
+        this.inputFormat = inputFormat;
+        this.readAheadExecutor = readAheadExecutor;
         this.inputs = Columns.wrap(inputs.stream().map(ExceptionHandlingInputProxy::new).collect(Collectors.toList()));
         this.fileInputFactories = fileInputFactories;
         this.shared = shared;
@@ -123,8 +142,8 @@ public class FileReadingIterator implements BatchIterator {
                 return this.input.value();
             } catch (ElasticsearchParseException e) {
                 throw new ElasticsearchParseException(String.format(Locale.ENGLISH,
-                    "Failed to parse JSON in line: %d in file: \"%s\"%n" +
-                    "Original error message: %s", currentLineNumber, currentUri, e.getMessage()), e);
+                    "Failed to parse JSON in line: %s in file: \"%s\"%n" +
+                    "Original error message: %s", currentLineLocation(), currentUri, e.getMessage()), e);
             }
         }
     }
@@ -136,9 +155,11 @@ public class FileReadingIterator implements BatchIterator {
                                             Map<String, FileInputFactory> fileInputFactories,
                                             Boolean shared,
                                             int numReaders,
-                                            int readerNumber) {
+                                            int readerNumber,
+                                            FileUriCollectPhase.InputFormat inputFormat,
+                                            Executor readAheadExecutor) {
         return new CloseAssertingBatchIterator(new FileReadingIterator(fileUris, inputs, collectorExpressions,
-            compression, fileInputFactories, shared, numReaders, readerNumber));
+            compression, fileInputFactories, shared, numReaders, readerNumber, inputFormat, readAheadExecutor));
     }
 
     private void initCollectorState() {
@@ -171,6 +192,8 @@ public class FileReadingIterator implements BatchIterator {
                 if (line == null) {
                     closeCurrentReader();
                     return moveNext();
+                } else if (currentCsvParser != null) {
+                    return parseCsvRecord(line) || moveNext();
                 } else {
                     lineContext.rawSource(line.getBytes(StandardCharsets.UTF_8));
                     return true;
@@ -191,8 +214,67 @@ public class FileReadingIterator implements BatchIterator {
         return false;
     }
 
+    /**
+     * @return false if the record was the header
+     */
+    private boolean parseCsvRecord(String line) throws IOException {
+        String record = line;
+        boolean quoted = CsvLineParser.endsQuoted(line, false);
+        if (quoted) {
+            StringBuilder multiLineRecord = new StringBuilder(line);
+            while (quoted) {
+                // empty lines are part of the quoted value, so they must not be skipped like in getLine
+                String nextLine = currentReader.readLine();
+                if (nextLine == null) {
+                    break;
+                }
+                currentLineNumber++;
+                multiLineRecord.append('\n').append(nextLine);
+                quoted = CsvLineParser.endsQuoted(nextLine, true);
+            }
+            record = multiLineRecord.toString();
+        }
+        try {
+            if (currentCsvParser.hasHeader()) {
+                lineContext.parsedSource(currentCsvParser.parse(record));
+                return true;
+            }
+            currentCsvParser.parseHeader(record);
+            return false;
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(String.format(Locale.ENGLISH,
+                "Failed to parse CSV in line: %s in file: \"%s\"%n" +
+                "Original error message: %s", currentLineLocation(), currentUri, e.getMessage()), e);
+        }
+    }
+
+    /**
+     * A reader of a byte range doesn't know how many lines precede its range,
+     * so its line numbers are relative to the first line of the range.
+     */
+    private String currentLineLocation() {
+        if (currentRangeStart == 0) {
+            return Long.toString(currentLineNumber);
+        }
+        return String.format(Locale.ENGLISH, "%d (counted from the first line starting at byte %d)",
+            currentLineNumber, currentRangeStart);
+    }
+
     private void advanceToNextUri(FileInput fileInput) throws IOException {
         currentUri = currentInputIterator.next();
+        currentCsvParser = inputFormat == FileUriCollectPhase.InputFormat.CSV ? new CsvLineParser() : null;
+        currentRangeStart = 0;
+        currentRangeEnd = WHOLE_FILE;
+        if (splitFiles) {
+            long size = fileInput.getSize(currentUri);
+            if (size >= MIN_SPLIT_FILE_SIZE) {
+                currentRangeStart = size * readerNumber / numReaders;
+                currentRangeEnd = size * (readerNumber + 1) / numReaders;
+            } else if (!isAssignedToReader(currentUri, numReaders, readerNumber)) {
+                // file is read as a whole by another reader
+                return;
+            }
+        }
         initCurrentReader(fileInput, currentUri);
     }
 
@@ -200,7 +282,12 @@ public class FileReadingIterator implements BatchIterator {
         currentInput = fileInputsIterator.next();
         FileInput fileInput = currentInput.v1();
         UriWithGlob fileUri = currentInput.v2();
-        Predicate<URI> uriPredicate = generateUriPredicate(fileInput, fileUri.globPredicate);
+        boolean sharedStorage = MoreObjects.firstNonNull(shared, fileInput.sharedStorageDefault());
+        // CSV files can't be split as the header is only contained in the first line
+        // and quoted values may contain line breaks
+        splitFiles = sharedStorage && numReaders > 1 && !compressed
+                     && inputFormat == FileUriCollectPhase.InputFormat.JSON;
+        Predicate<URI> uriPredicate = generateUriPredicate(sharedStorage && !splitFiles, fileUri.globPredicate);
         List<URI> uris = getUris(fileInput, fileUri.uri, fileUri.preGlobUri, uriPredicate);
         if (uris.size() > 0) {
             currentInputIterator = uris.iterator();
@@ -209,7 +296,15 @@ public class FileReadingIterator implements BatchIterator {
     }
 
     private void initCurrentReader(FileInput fileInput, URI uri) throws IOException {
-        InputStream stream = fileInput.getStream(uri);
+        InputStream stream;
+        if (currentRangeEnd == WHOLE_FILE) {
+            stream = fileInput.getStream(uri);
+        } else {
+            stream = fileInput.getStream(uri, Math.max(0, currentRangeStart - 1));
+            if (stream != null) {
+                stream = new LineRangeInputStream(stream, currentRangeStart, currentRangeEnd);
+            }
+        }
         if (stream != null) {
             currentReader = createBufferedReader(stream);
             currentLineNumber = 0;
@@ -366,15 +461,10 @@ public class FileReadingIterator implements BatchIterator {
         return new URLFileInput(fileUri);
     }
 
-    private BufferedReader createBufferedReader(InputStream inputStream) throws IOException {
-        BufferedReader reader;
-        if (compressed) {
-            reader = new BufferedReader(new InputStreamReader(new GZIPInputStream(inputStream),
-                StandardCharsets.UTF_8));
-        } else {
-            reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
-        }
-        return reader;
+    private BufferedReader createBufferedReader(InputStream inputStream) {
+        // reading and decompressing the file is done by the read ahead executor while the lines are processed
+        return new BufferedReader(new InputStreamReader(
+            new ReadAheadInputStream(inputStream, compressed, readAheadExecutor), StandardCharsets.UTF_8));
     }
 
     private static List<URI> getUris(FileInput fileInput, URI fileUri, URI preGlobUri, Predicate<URI> uriPredicate) throws IOException {
@@ -389,17 +479,18 @@ public class FileReadingIterator implements BatchIterator {
         return uris;
     }
 
-    private Predicate<URI> generateUriPredicate(FileInput fileInput, @Nullable Predicate<URI> globPredicate) {
+    private static boolean isAssignedToReader(URI uri, int numReaders, int readerNumber) {
+        int hash = uri.hashCode();
+        if (hash == Integer.MIN_VALUE) {
+            hash = 0; // Math.abs(Integer.MIN_VALUE) == Integer.MIN_VALUE
+        }
+        return Math.abs(hash) % numReaders == readerNumber;
+    }
+
+    private Predicate<URI> generateUriPredicate(boolean assignFilesToReaders, @Nullable Predicate<URI> globPredicate) {
         Predicate<URI> moduloPredicate;
-        boolean sharedStorage = MoreObjects.firstNonNull(shared, fileInput.sharedStorageDefault());
-        if (sharedStorage) {
-            moduloPredicate = input -> {
-                int hash = input.hashCode();
-                if (hash == Integer.MIN_VALUE) {
-                    hash = 0; // Math.abs(Integer.MIN_VALUE) == Integer.MIN_VALUE
-                }
-                return Math.abs(hash) % numReaders == readerNumber;
-            };
+        if (assignFilesToReaders) {
+            moduloPredicate = input -> isAssignedToReader(input, numReaders, readerNumber);
         } else {
             moduloPredicate = MATCH_ALL_PREDICATE;
         }
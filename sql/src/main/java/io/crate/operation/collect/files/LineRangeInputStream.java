@@ -0,0 +1,111 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.operation.collect.files;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Limits a stream of newline delimited content to the lines which start within the byte range {@code [start, end)}.
+ * <p>
+ * The wrapped stream must be positioned at {@code start - 1} (or at 0 if start is 0). If the range doesn't start at a
+ * line boundary the partial first line is skipped, as it belongs to the previous range, while the last line is read
+ * beyond {@code end} until it is complete. This way adjacent ranges of a file return each line exactly once.
+ * </p>
+ */
+class LineRangeInputStream extends InputStream {
+
+    private static final byte LINE_DELIMITER = '\n';
+
+    private final InputStream in;
+    private final long end;
+    private long position;
+    private boolean skipPartialLine;
+    private boolean atLineStart = true;
+    private boolean done = false;
+    private final byte[] singleByte = new byte[1];
+
+    LineRangeInputStream(InputStream in, long start, long end) {
+        assert start >= 0 && start <= end : "start must be within [0, end]";
+        this.in = in;
+        this.end = end;
+        this.skipPartialLine = start > 0;
+        this.position = start > 0 ? start - 1 : 0;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int n = read(singleByte, 0, 1);
+        return n == -1 ? -1 : singleByte[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (skipPartialLine) {
+            skipPartialLine();
+        }
+        if (done || (atLineStart && position >= end)) {
+            done = true;
+            return -1;
+        }
+        if (len == 0) {
+            return 0;
+        }
+        int n = in.read(b, off, len);
+        if (n == -1) {
+            done = true;
+            return -1;
+        }
+        if (position + n < end) {
+            position += n;
+            atLineStart = b[off + n - 1] == LINE_DELIMITER;
+            return n;
+        }
+        for (int i = 0; i < n; i++) {
+            if (atLineStart && position >= end) {
+                done = true;
+                return i;
+            }
+            atLineStart = b[off + i] == LINE_DELIMITER;
+            position++;
+        }
+        return n;
+    }
+
+    private void skipPartialLine() throws IOException {
+        skipPartialLine = false;
+        int b;
+        while ((b = in.read()) != -1) {
+            position++;
+            if (b == LINE_DELIMITER) {
+                return;
+            }
+        }
+        done = true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
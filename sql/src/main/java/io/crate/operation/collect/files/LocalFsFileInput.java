@@ -25,6 +25,8 @@ import com.google.common.collect.ImmutableList;
 
 import java.io.*;
 import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.file.*;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
@@ -81,6 +83,32 @@ public class LocalFsFileInput implements FileInput {
         }
     }
 
+    @Override
+    public long getSize(URI uri) throws IOException {
+        try {
+            return Files.size(Paths.get(uri));
+        } catch (NoSuchFileException e) {
+            return -1;
+        }
+    }
+
+    @Override
+    public InputStream getStream(URI uri, long position) throws IOException {
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(Paths.get(uri), StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        try {
+            channel.position(position);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return Channels.newInputStream(channel);
+    }
+
     @Override
     public boolean sharedStorageDefault() {
         return false;
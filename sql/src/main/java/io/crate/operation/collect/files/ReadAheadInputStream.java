@@ -0,0 +1,214 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.operation.collect.files;
+
+import io.crate.exceptions.Exceptions;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads blocks of the wrapped stream ahead on a separate thread.
+ * <p>
+ * Blocking reads of the wrapped stream (e.g. network I/O or decompression if {@code decompress} is set) are done by
+ * the executor, while the consumer processes previously read blocks. At most {@code maxBlocks} blocks of up to
+ * {@code blockSize} bytes are buffered. The reading task doesn't wait for free space if the consumer falls behind,
+ * it returns its thread to the executor and is scheduled again once the consumer took a block.
+ * </p>
+ * <p>
+ * The wrapped stream is closed once it is exhausted, failed or this stream has been closed.
+ * </p>
+ */
+class ReadAheadInputStream extends InputStream {
+
+    static final int BLOCK_SIZE = 64 * 1024;
+    static final int MAX_BLOCKS = 16;
+
+    private static final Block EOF = new Block(new byte[0], -1);
+
+    private final InputStream source;
+    private final boolean decompress;
+    private final Executor executor;
+    private final BlockingQueue<Block> blocks;
+    private final int blockSize;
+    private final int maxBlocks;
+
+    /**
+     * true while the reading task is scheduled or running, and also once it has finished.
+     * Only the thread which sets it to true may read {@link #in} or close the wrapped stream.
+     */
+    private final AtomicBoolean reading = new AtomicBoolean(true);
+    private volatile boolean closed = false;
+
+    private InputStream in = null;
+    private byte[] buffer = null;
+
+    private Block current = null;
+    private int currentPos = 0;
+
+    private static class Block {
+
+        private final byte[] bytes;
+        private final int length;
+        private final Throwable failure;
+
+        Block(byte[] bytes, int length) {
+            this.bytes = bytes;
+            this.length = length;
+            this.failure = null;
+        }
+
+        Block(Throwable failure) {
+            this.bytes = null;
+            this.length = -1;
+            this.failure = failure;
+        }
+    }
+
+    ReadAheadInputStream(InputStream in, boolean decompress, Executor executor) {
+        this(in, decompress, executor, BLOCK_SIZE, MAX_BLOCKS);
+    }
+
+    ReadAheadInputStream(InputStream in, boolean decompress, Executor executor, int blockSize, int maxBlocks) {
+        this.source = in;
+        this.decompress = decompress;
+        this.executor = executor;
+        this.blockSize = blockSize;
+        this.maxBlocks = maxBlocks;
+        // one additional slot, so that the EOF or a failure always fits
+        this.blocks = new ArrayBlockingQueue<>(maxBlocks + 1);
+        executor.execute(this::readBlocks);
+    }
+
+    private void readBlocks() {
+        try {
+            if (in == null) {
+                // creating a GZIPInputStream already reads the header from the wrapped stream
+                in = decompress ? new GZIPInputStream(source) : source;
+                buffer = new byte[blockSize];
+            }
+            while (!closed) {
+                if (blocks.size() >= maxBlocks) {
+                    reading.set(false);
+                    // the consumer may have taken a block before reading was reset and didn't schedule a new task
+                    if (blocks.size() < maxBlocks && !closed && reading.compareAndSet(false, true)) {
+                        continue;
+                    }
+                    return;
+                }
+                // a single read per block, so that bytes which are already available are never held back
+                // by a blocking or failing read
+                int length = in.read(buffer, 0, buffer.length);
+                if (length == -1) {
+                    blocks.add(EOF);
+                    break;
+                }
+                if (length > 0) {
+                    blocks.add(new Block(Arrays.copyOf(buffer, length), length));
+                }
+            }
+        } catch (Throwable t) {
+            if (!closed) {
+                blocks.add(new Block(t));
+            }
+        }
+        closeInput();
+    }
+
+    private void closeInput() {
+        try {
+            if (in == null) {
+                source.close();
+            } else {
+                in.close();
+            }
+        } catch (IOException ignored) {
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!ensureCurrentBlock()) {
+            return -1;
+        }
+        return current.bytes[currentPos++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!ensureCurrentBlock()) {
+            return -1;
+        }
+        int n = Math.min(len, current.length - currentPos);
+        System.arraycopy(current.bytes, currentPos, b, off, n);
+        currentPos += n;
+        return n;
+    }
+
+    private boolean ensureCurrentBlock() throws IOException {
+        if (current == null || (current.bytes != null && current != EOF && currentPos >= current.length)) {
+            try {
+                current = blocks.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the next block");
+            }
+            currentPos = 0;
+            if (reading.compareAndSet(false, true)) {
+                executor.execute(this::readBlocks);
+            }
+        }
+        if (current.failure != null) {
+            if (current.failure instanceof IOException) {
+                throw (IOException) current.failure;
+            }
+            Exceptions.rethrowUnchecked(current.failure);
+        }
+        return current != EOF;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return current == null || current.bytes == null ? 0 : Math.max(0, current.length - currentPos);
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        blocks.clear();
+        // a running reading task closes the wrapped stream itself
+        if (reading.compareAndSet(false, true)) {
+            closeInput();
+        }
+    }
+}
@@ -22,6 +22,7 @@
 package io.crate.operation.collect.files;
 
 import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.GetObjectRequest;
 import com.amazonaws.services.s3.model.ObjectListing;
 import com.amazonaws.services.s3.model.S3Object;
 import com.amazonaws.services.s3.model.S3ObjectSummary;
@@ -98,6 +99,30 @@ public class S3FileInput implements FileInput {
         return null;
     }
 
+    @Override
+    public long getSize(URI uri) throws IOException {
+        if (client == null) {
+            client = clientBuilder.client(uri);
+        }
+        return client.getObjectMetadata(uri.getHost(), uri.getPath().substring(1)).getContentLength();
+    }
+
+    @Override
+    public InputStream getStream(URI uri, long position) throws IOException {
+        if (client == null) {
+            client = clientBuilder.client(uri);
+        }
+        // the end of the range is capped to the size of the object
+        GetObjectRequest request = new GetObjectRequest(uri.getHost(), uri.getPath().substring(1))
+            .withRange(position, Long.MAX_VALUE - 1);
+        S3Object object = client.getObject(request);
+
+        if (object != null) {
+            return object.getObjectContent();
+        }
+        return null;
+    }
+
     @Override
     public boolean sharedStorageDefault() {
         return true;
@@ -44,6 +44,7 @@ import io.crate.operation.collect.*;
 import io.crate.operation.collect.collectors.CompositeCollector;
 import io.crate.operation.collect.collectors.OrderedDocCollector;
 import io.crate.operation.collect.collectors.OrderedLuceneBatchIteratorFactory;
+import io.crate.operation.collect.collectors.TopNCutoff;
 import io.crate.operation.projectors.ProjectingBatchConsumer;
 import io.crate.operation.projectors.ProjectionToProjectorVisitor;
 import io.crate.operation.projectors.ProjectorFactory;
@@ -53,7 +54,9 @@ import io.crate.operation.reference.sys.node.local.NodeSysReferenceResolver;
 import io.crate.planner.consumer.OrderByPositionVisitor;
 import io.crate.planner.node.dql.CollectPhase;
 import io.crate.planner.node.dql.RoutedCollectPhase;
+import io.crate.planner.projection.Projection;
 import io.crate.planner.projection.Projections;
+import io.crate.planner.projection.TopNProjection;
 import io.crate.plugin.IndexEventListenerProxy;
 import org.elasticsearch.cluster.metadata.IndexMetaData;
 import org.elasticsearch.cluster.metadata.IndexNameExpressionResolver;
@@ -341,6 +344,7 @@ public class ShardCollectSource extends AbstractComponent implements CollectSour
         SharedShardContexts sharedShardContexts = jobCollectContext.sharedShardContexts();
         Map<String, List<Integer>> indexShards = locations.get(localNodeId);
         List<OrderedDocCollector> orderedDocCollectors = new ArrayList<>();
+        TopNCutoff topNCutoff = topNCutoff(collectPhase);
         MetaData metaData = clusterService.state().metaData();
         for (Map.Entry<String, List<Integer>> entry : indexShards.entrySet()) {
             String indexName = entry.getKey();
@@ -355,7 +359,8 @@ public class ShardCollectSource extends AbstractComponent implements CollectSour
                     orderedDocCollectors.add(shardCollectorProvider.getOrderedCollector(collectPhase,
                         context,
                         jobCollectContext,
-                        consumer.requiresScroll()));
+                        consumer.requiresScroll(),
+                        topNCutoff));
                 } catch (ShardNotFoundException | IllegalIndexShardStateException e) {
                     throw e;
                 } catch (IndexNotFoundException e) {
@@ -387,6 +392,27 @@ public class ShardCollectSource extends AbstractComponent implements CollectSour
         );
     }
 
+    /**
+     * A node can't emit more rows than the limit of a leading TopNProjection, so its shards don't have to provide the
+     * rows which sort after the top N rows collected from all of them.
+     */
+    @Nullable
+    private static TopNCutoff topNCutoff(RoutedCollectPhase collectPhase) {
+        List<Projection> projections = collectPhase.projections();
+        if (projections.isEmpty() || Projections.hasAnyShardProjections(projections)) {
+            return null;
+        }
+        Projection firstProjection = projections.get(0);
+        if (firstProjection instanceof TopNProjection) {
+            TopNProjection topN = (TopNProjection) firstProjection;
+            OrderBy orderBy = collectPhase.orderBy();
+            if (topN.offset() == 0 && topN.limit() > 0 && orderBy != null) {
+                return new TopNCutoff(topN.limit(), orderBy.reverseFlags()[0]);
+            }
+        }
+        return null;
+    }
+
     private ShardCollectorProvider getCollectorProviderSafe(ShardId shardId) {
         ShardCollectorProvider shardCollectorProvider = shards.get(shardId);
         if (shardCollectorProvider == null) {
@@ -23,9 +23,10 @@
 package io.crate.operation.fetch;
 
 import com.carrotsearch.hppc.IntContainer;
-import com.carrotsearch.hppc.cursors.IntCursor;
+import com.google.common.annotations.VisibleForTesting;
 import io.crate.Streamer;
 import io.crate.breaker.RamAccountingContext;
+import io.crate.data.RowN;
 import io.crate.executor.transport.StreamBucket;
 import io.crate.operation.InputRow;
 import io.crate.operation.collect.collectors.CollectorFieldsVisitor;
@@ -36,9 +37,18 @@ import org.apache.lucene.index.ReaderUtil;
 import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.index.fielddata.IndexFieldDataService;
 
+import javax.annotation.Nullable;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.List;
 
+/**
+ * Collects the rows of the requested docIds of a reader.
+ * <p>
+ * The docs are read in docId order, as reading stored fields in random order would decompress the same
+ * blocks over and over again. The rows are then returned in the requested order.
+ * </p>
+ */
 class FetchCollector {
 
     private final CollectorFieldsVisitor fieldsVisitor;
@@ -48,6 +58,7 @@ class FetchCollector {
     private final Streamer<?>[] streamers;
     private final List<LeafReaderContext> readerContexts;
     private final RamAccountingContext ramAccountingContext;
+    private int currentReaderIndex = -1;
 
     FetchCollector(List<LuceneCollectorExpression<?>> collectorExpressions,
                    Streamer<?>[] streamers,
@@ -70,26 +81,72 @@ class FetchCollector {
 
     }
 
-    private void setNextDocId(LeafReaderContext readerContext, int doc) throws IOException {
+    private void setNextDocId(int docId) throws IOException {
+        int readerIndex = ReaderUtil.subIndex(docId, readerContexts);
+        LeafReaderContext readerContext = readerContexts.get(readerIndex);
+        if (readerIndex != currentReaderIndex) {
+            currentReaderIndex = readerIndex;
+            for (LuceneCollectorExpression e : collectorExpressions) {
+                e.setNextReader(readerContext);
+            }
+        }
+        int doc = docId - readerContext.docBase;
         if (visitorEnabled) {
             fieldsVisitor.reset();
             readerContext.reader().document(doc, fieldsVisitor);
         }
         for (LuceneCollectorExpression e : collectorExpressions) {
-            e.setNextReader(readerContext);
             e.setNextDocId(doc);
         }
     }
 
     public StreamBucket collect(IntContainer docIds) throws IOException {
         StreamBucket.Builder builder = new StreamBucket.Builder(streamers, ramAccountingContext);
-        for (IntCursor cursor : docIds) {
-            int docId = cursor.value;
-            int readerIndex = ReaderUtil.subIndex(docId, readerContexts);
-            LeafReaderContext subReaderContext = readerContexts.get(readerIndex);
-            setNextDocId(subReaderContext, docId - subReaderContext.docBase);
-            builder.add(row);
+        int[] ids = docIds.toArray();
+        int[] positions = positionsInDocIdOrder(ids);
+        if (positions == null) {
+            for (int docId : ids) {
+                setNextDocId(docId);
+                builder.add(row);
+            }
+        } else {
+            Object[][] rows = new Object[ids.length][];
+            for (int position : positions) {
+                setNextDocId(ids[position]);
+                rows[position] = row.materialize();
+            }
+            RowN rowN = new RowN(streamers.length);
+            for (Object[] cells : rows) {
+                rowN.cells(cells);
+                builder.add(rowN);
+            }
         }
         return builder.build();
     }
+
+    /**
+     * @return the positions of the docIds sorted by docId or null if the docIds are already sorted
+     */
+    @VisibleForTesting
+    @Nullable
+    static int[] positionsInDocIdOrder(int[] docIds) {
+        boolean sorted = true;
+        for (int i = 1; i < docIds.length && sorted; i++) {
+            sorted = docIds[i - 1] <= docIds[i];
+        }
+        if (sorted) {
+            return null;
+        }
+        // docIds are never negative, so the position can be kept in the lower bits of a sort key
+        long[] keys = new long[docIds.length];
+        for (int i = 0; i < docIds.length; i++) {
+            keys[i] = ((long) docIds[i] << 32) | i;
+        }
+        Arrays.sort(keys);
+        int[] positions = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            positions[i] = (int) keys[i];
+        }
+        return positions;
+    }
 }
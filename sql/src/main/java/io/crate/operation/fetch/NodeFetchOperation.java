@@ -25,6 +25,8 @@ import com.carrotsearch.hppc.IntContainer;
 import com.carrotsearch.hppc.IntObjectHashMap;
 import com.carrotsearch.hppc.IntObjectMap;
 import com.carrotsearch.hppc.cursors.IntObjectCursor;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableSet;
 import io.crate.Streamer;
 import io.crate.analyze.symbol.Symbols;
 import io.crate.breaker.RamAccountingContext;
@@ -32,14 +34,18 @@ import io.crate.exceptions.SQLExceptions;
 import io.crate.executor.transport.StreamBucket;
 import io.crate.jobs.JobContextService;
 import io.crate.jobs.JobExecutionContext;
+import io.crate.lucene.FieldTypeLookup;
+import io.crate.metadata.DocReferences;
 import io.crate.metadata.Reference;
 import io.crate.metadata.TableIdent;
 import io.crate.operation.collect.stats.JobsLogs;
 import io.crate.operation.reference.doc.lucene.LuceneCollectorExpression;
 import io.crate.operation.reference.doc.lucene.LuceneReferenceResolver;
+import io.crate.types.*;
 import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
 import org.elasticsearch.index.IndexService;
+import org.elasticsearch.index.mapper.MappedFieldType;
 
 import javax.annotation.Nullable;
 import java.util.*;
@@ -57,6 +63,22 @@ public class NodeFetchOperation {
     private final JobContextService jobContextService;
     private final CircuitBreaker circuitBreaker;
 
+    /**
+     * types whose doc values are equal to the values of the source.
+     * (geo points are excluded because their doc values are encoded with a lower precision)
+     */
+    private static final Set<Integer> DOC_VALUES_TYPES = ImmutableSet.of(
+        ByteType.ID,
+        ShortType.ID,
+        IntegerType.ID,
+        LongType.ID,
+        TimestampType.ID,
+        FloatType.ID,
+        DoubleType.ID,
+        BooleanType.ID,
+        StringType.ID
+    );
+
     private static class TableFetchInfo {
 
         private final Streamer<?>[] streamers;
@@ -71,11 +93,12 @@ public class NodeFetchOperation {
 
         FetchCollector createCollector(int readerId, RamAccountingContext ramAccountingContext) {
             IndexService indexService = fetchContext.indexService(readerId);
+            FieldTypeLookup fieldTypeLookup = indexService.mapperService()::fullName;
             LuceneReferenceResolver resolver = new LuceneReferenceResolver(
-                indexService.mapperService()::fullName, indexService.getIndexSettings());
+                fieldTypeLookup, indexService.getIndexSettings());
             ArrayList<LuceneCollectorExpression<?>> exprs = new ArrayList<>(refs.size());
             for (Reference reference : refs) {
-                exprs.add(resolver.getImplementation(reference));
+                exprs.add(resolver.getImplementation(toDocValuesLookupIfPossible(reference, fieldTypeLookup)));
             }
             return new FetchCollector(
                 exprs,
@@ -88,6 +111,30 @@ public class NodeFetchOperation {
         }
     }
 
+    /**
+     * Rewrite a source lookup into a regular column reference if the column can be read from its doc values.
+     * This avoids loading and parsing the whole source of a document if only some columns of it are fetched.
+     *
+     * <pre>
+     *     _doc['x'] -> x
+     * </pre>
+     */
+    @VisibleForTesting
+    static Reference toDocValuesLookupIfPossible(Reference reference, FieldTypeLookup fieldTypeLookup) {
+        if (!DOC_VALUES_TYPES.contains(reference.valueType().id())) {
+            return reference;
+        }
+        Reference columnRef = (Reference) DocReferences.inverseSourceLookup(reference);
+        if (columnRef == reference) {
+            return reference;
+        }
+        MappedFieldType fieldType = fieldTypeLookup.get(columnRef.ident().columnIdent().fqn());
+        if (fieldType == null || !fieldType.hasDocValues()) {
+            return reference;
+        }
+        return columnRef;
+    }
+
     public NodeFetchOperation(Executor executor,
                               JobsLogs jobsLogs,
                               JobContextService jobContextService,
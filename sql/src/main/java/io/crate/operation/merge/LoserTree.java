@@ -0,0 +1,153 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.operation.merge;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Tournament tree of losers used to do a k-way merge.
+ * <p>
+ * Each inner node stores the loser of the comparison between its two subtrees, the overall winner is kept in
+ * {@code tree[0]}. Once the winner has been advanced (or removed if it is exhausted) the tree is updated by
+ * replaying the path from its leaf to the root, which takes exactly one comparison per level, whereas a binary heap
+ * needs up to two.
+ * <p>
+ * Elements which compare equal are returned in the order in which they have been added.
+ */
+final class LoserTree<T> {
+
+    private final Comparator<? super T> comparator;
+
+    /**
+     * null entries are removed (exhausted) leaves which lose every comparison
+     */
+    private List<T> leaves = new ArrayList<>();
+    private int[] tree = new int[0];
+
+    LoserTree(Comparator<? super T> comparator) {
+        this.comparator = comparator;
+    }
+
+    /**
+     * @return the smallest element or null if there are no elements left
+     */
+    @Nullable
+    T winner() {
+        if (tree.length == 0) {
+            return null;
+        }
+        return leaves.get(tree[0]);
+    }
+
+    /**
+     * Must be called after the value by which the current winner is compared has changed.
+     */
+    void winnerChanged() {
+        if (tree.length > 0) {
+            replay(tree[0]);
+        }
+    }
+
+    /**
+     * Removes the current winner, the next winner is determined by replaying its path with an empty leaf.
+     */
+    void removeWinner() {
+        if (tree.length > 0) {
+            int winner = tree[0];
+            leaves.set(winner, null);
+            replay(winner);
+        }
+    }
+
+    /**
+     * Adds new elements, this rebuilds the whole tree and drops removed leaves.
+     */
+    void addAll(Collection<? extends T> elements) {
+        if (elements.isEmpty()) {
+            return;
+        }
+        List<T> newLeaves = new ArrayList<>(leaves.size() + elements.size());
+        for (T leaf : leaves) {
+            if (leaf != null) {
+                newLeaves.add(leaf);
+            }
+        }
+        newLeaves.addAll(elements);
+        leaves = newLeaves;
+        build();
+    }
+
+    private void build() {
+        int numLeaves = leaves.size();
+        tree = new int[numLeaves];
+        if (numLeaves == 0) {
+            return;
+        }
+        // winners of the subtrees; the leaves are at [numLeaves, 2 * numLeaves)
+        int[] winners = new int[numLeaves * 2];
+        for (int i = 0; i < numLeaves; i++) {
+            winners[numLeaves + i] = i;
+        }
+        for (int node = numLeaves - 1; node > 0; node--) {
+            int left = winners[node * 2];
+            int right = winners[node * 2 + 1];
+            if (beats(right, left)) {
+                winners[node] = right;
+                tree[node] = left;
+            } else {
+                winners[node] = left;
+                tree[node] = right;
+            }
+        }
+        tree[0] = winners[1];
+    }
+
+    private void replay(int leaf) {
+        int winner = leaf;
+        for (int node = (leaf + tree.length) >> 1; node > 0; node >>= 1) {
+            int loser = tree[node];
+            if (beats(loser, winner)) {
+                tree[node] = winner;
+                winner = loser;
+            }
+        }
+        tree[0] = winner;
+    }
+
+    private boolean beats(int leftIdx, int rightIdx) {
+        T left = leaves.get(leftIdx);
+        if (left == null) {
+            return false;
+        }
+        T right = leaves.get(rightIdx);
+        if (right == null) {
+            return true;
+        }
+        int cmp = comparator.compare(left, right);
+        return cmp < 0 || (cmp == 0 && leftIdx < rightIdx);
+    }
+}
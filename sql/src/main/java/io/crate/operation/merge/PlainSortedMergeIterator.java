@@ -34,39 +34,43 @@ import static com.google.common.collect.Iterators.peekingIterator;
  * It has (limited) shared object support.
  * <p>
  * And it also has a merge function with which additional backing iterators can be added to enable paging
+ * <p>
+ * The backing iterators are merged using a {@link LoserTree}.
  */
 class PlainSortedMergeIterator<TKey, TRow> extends UnmodifiableIterator<TRow> implements SortedMergeIterator<TKey, TRow> {
 
-    private final Queue<NumberedPeekingIterator<TKey, TRow>> queue;
+    private final LoserTree<NumberedPeekingIterator<TKey, TRow>> tree;
     private NumberedPeekingIterator<TKey, TRow> lastUsedIter = null;
     private boolean leastExhausted = false;
     private TKey exhausted;
 
     PlainSortedMergeIterator(final Comparator<? super TRow> itemComparator) {
-        Comparator<PeekingIterator<TRow>> heapComparator = (o1, o2) -> itemComparator.compare(o1.peek(), o2.peek());
-        queue = new PriorityQueue<>(2, heapComparator);
+        tree = new LoserTree<>((o1, o2) -> itemComparator.compare(o1.peek(), o2.peek()));
     }
 
     private void addIterators(Iterable<? extends KeyIterable<TKey, TRow>> iterables) {
+        List<NumberedPeekingIterator<TKey, TRow>> iterators = new ArrayList<>();
         for (KeyIterable<TKey, TRow> iterable : iterables) {
             Iterator<TRow> rowIterator = iterable.iterator();
             if (rowIterator.hasNext()) {
-                queue.add(new NumberedPeekingIterator<>(iterable.key(), peekingIterator(rowIterator)));
+                iterators.add(new NumberedPeekingIterator<>(iterable.key(), peekingIterator(rowIterator)));
             }
         }
+        tree.addAll(iterators);
     }
 
     @Override
     public boolean hasNext() {
         reAddLastIterator();
-        return !queue.isEmpty();
+        return tree.winner() != null;
     }
 
     private void reAddLastIterator() {
         if (lastUsedIter != null) {
             if (lastUsedIter.hasNext()) {
-                queue.add(lastUsedIter);
+                tree.winnerChanged();
             } else {
+                tree.removeWinner();
                 leastExhausted = true;
                 exhausted = lastUsedIter.key;
             }
@@ -79,18 +83,17 @@ class PlainSortedMergeIterator<TKey, TRow> extends UnmodifiableIterator<TRow> im
         if (!hasNext()) {
             throw new NoSuchElementException("no more rows should exist");
         }
-        lastUsedIter = queue.remove();
+        lastUsedIter = tree.winner();
         return lastUsedIter.next();
     }
 
     @Override
     public void merge(Iterable<? extends KeyIterable<TKey, TRow>> numberedIterables) {
-        if (lastUsedIter != null && lastUsedIter.hasNext()) {
-            queue.add(lastUsedIter);
-            lastUsedIter = null;
-        }
+        // an exhausted iterator which hasn't been reported by hasNext yet, must still be reported afterwards
+        boolean lastUsedIterExhausted = lastUsedIter != null && !lastUsedIter.hasNext();
+        reAddLastIterator();
         addIterators(numberedIterables);
-        leastExhausted = false;
+        leastExhausted = lastUsedIterExhausted;
     }
 
     public boolean isLeastExhausted() {
@@ -34,7 +34,7 @@ import static com.google.common.collect.Iterators.peekingIterator;
  */
 class RecordingSortedMergeIterator<TKey, TRow> extends UnmodifiableIterator<TRow> implements SortedMergeIterator<TKey, TRow> {
 
-    private final Queue<Indexed<TKey, PeekingIterator<TRow>>> queue;
+    private final LoserTree<Indexed<TKey, PeekingIterator<TRow>>> tree;
     private Indexed<TKey, PeekingIterator<TRow>> lastUsedIter = null;
     private boolean leastExhausted = false;
 
@@ -43,23 +43,21 @@ class RecordingSortedMergeIterator<TKey, TRow> extends UnmodifiableIterator<TRow
     private TKey exhausted;
 
     RecordingSortedMergeIterator(final Comparator<? super TRow> itemComparator) {
-        Comparator<Indexed<?, PeekingIterator<TRow>>> heapComparator = (o1, o2) -> {
-            return itemComparator.compare(o1.val.peek(), o2.val.peek());
-        };
-        queue = new PriorityQueue<>(2, heapComparator);
+        tree = new LoserTree<>((o1, o2) -> itemComparator.compare(o1.val.peek(), o2.val.peek()));
     }
 
     @Override
     public boolean hasNext() {
         reAddLastIterator();
-        return !queue.isEmpty();
+        return tree.winner() != null;
     }
 
     private void reAddLastIterator() {
         if (lastUsedIter != null) {
             if (lastUsedIter.val.hasNext()) {
-                queue.add(lastUsedIter);
+                tree.winnerChanged();
             } else {
+                tree.removeWinner();
                 leastExhausted = true;
                 exhausted = lastUsedIter.key;
             }
@@ -72,30 +70,31 @@ class RecordingSortedMergeIterator<TKey, TRow> extends UnmodifiableIterator<TRow
         if (!hasNext()) {
             throw new NoSuchElementException("no more rows should exist");
         }
-        lastUsedIter = queue.remove();
+        lastUsedIter = tree.winner();
         sortRecording.add(lastUsedIter.i); // record sorting for repeat
         return lastUsedIter.val.next();
     }
 
     private void addIterators(Iterable<? extends KeyIterable<TKey, TRow>> iterables) {
+        List<Indexed<TKey, PeekingIterator<TRow>>> iterators = new ArrayList<>();
         for (KeyIterable<TKey, TRow> rowIterable : iterables) {
             Iterator<TRow> rowIterator = rowIterable.iterator();
             if (rowIterator.hasNext()) {
                 // store index in stored list
-                queue.add(new Indexed<>(storedIterables.size(), rowIterable.key(), peekingIterator(rowIterator)));
+                iterators.add(new Indexed<>(storedIterables.size(), rowIterable.key(), peekingIterator(rowIterator)));
                 this.storedIterables.add(rowIterable);
             }
         }
+        tree.addAll(iterators);
     }
 
     @Override
     public void merge(Iterable<? extends KeyIterable<TKey, TRow>> numberedIterables) {
-        if (lastUsedIter != null && lastUsedIter.val.hasNext()) {
-            queue.add(lastUsedIter);
-            lastUsedIter = null;
-        }
+        // an exhausted iterator which hasn't been reported by hasNext yet, must still be reported afterwards
+        boolean lastUsedIterExhausted = lastUsedIter != null && !lastUsedIter.val.hasNext();
+        reAddLastIterator();
         addIterators(numberedIterables);
-        leastExhausted = false;
+        leastExhausted = lastUsedIterExhausted;
     }
 
     @Override
@@ -45,14 +45,13 @@ import java.util.Collections;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BiConsumer;
 import java.util.function.BooleanSupplier;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
-import static io.crate.operation.NodeJobsCounter.MAX_NODE_CONCURRENT_OPERATIONS;
-
 public class ShardDMLExecutor<TReq extends ShardRequest<TReq, TItem>, TItem extends ShardRequest.Item>
     implements Function<BatchIterator, CompletableFuture<? extends Iterable<Row>>> {
 
@@ -89,8 +88,8 @@ public class ShardDMLExecutor<TReq extends ShardRequest<TReq, TItem>, TItem exte
         this.localNodeId = getLocalNodeId(clusterService);
 
         this.rowConsumer = createRowConsumer(uidExpression, itemFactory);
-        this.shouldPause = () ->
-            nodeJobsCounter.getInProgressJobsForNode(localNodeId) >= MAX_NODE_CONCURRENT_OPERATIONS;
+        this.shouldPause = () -> nodeJobsCounter.getInProgressJobsForNode(localNodeId) >=
+                                 nodeJobsCounter.getConcurrencyLimitForNode(localNodeId);
         this.execute = createExecuteFunction(scheduler, nodeJobsCounter, requestFactory, transportAction);
     }
 
@@ -109,9 +108,12 @@ public class ShardDMLExecutor<TReq extends ShardRequest<TReq, TItem>, TItem exte
                                                                                BiConsumer<TReq, ActionListener<ShardResponse>> transportAction) {
         return (isLastBatch) -> {
             nodeJobsCounter.increment(localNodeId);
+            // the latency is measured per attempt, retries of rejected requests start a new measurement
+            AtomicLong attemptStartTime = new AtomicLong();
 
             Function<ShardResponse, BitSet> transformResponseFunction = response -> {
                 nodeJobsCounter.decrement(localNodeId);
+                nodeJobsCounter.onResponse(localNodeId, System.nanoTime() - attemptStartTime.get());
                 processShardResponse(response);
                 return responses;
             };
@@ -128,10 +130,17 @@ public class ShardDMLExecutor<TReq extends ShardRequest<TReq, TItem>, TItem exte
                     }
                 };
 
+            TReq request = currentRequest;
+            attemptStartTime.set(System.nanoTime());
             transportAction.accept(
-                currentRequest,
+                request,
                 new RetryListener<>(scheduler,
-                    (actionListener) -> transportAction.accept(currentRequest, actionListener),
+                    (actionListener) -> {
+                        // retries are only done if the request has been rejected
+                        nodeJobsCounter.onRejection(localNodeId);
+                        attemptStartTime.set(System.nanoTime());
+                        transportAction.accept(request, actionListener);
+                    },
                     listener,
                     BACKOFF_POLICY
                 )
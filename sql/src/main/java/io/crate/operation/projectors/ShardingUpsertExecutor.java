@@ -64,14 +64,13 @@ import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BiFunction;
 import java.util.function.BooleanSupplier;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
-import static io.crate.operation.NodeJobsCounter.MAX_NODE_CONCURRENT_OPERATIONS;
-
 public class ShardingUpsertExecutor<TReq extends ShardRequest<TReq, TItem>, TItem extends ShardRequest.Item>
     implements Function<BatchIterator, CompletableFuture<? extends Iterable<Row>>> {
 
@@ -159,7 +158,8 @@ public class ShardingUpsertExecutor<TReq extends ShardRequest<TReq, TItem>, TIte
         return () -> {
             for (ShardLocation shardLocation : requestsByShard.keySet()) {
                 String requestNodeId = shardLocation.nodeId;
-                if (nodeJobsCounter.getInProgressJobsForNode(requestNodeId) >= MAX_NODE_CONCURRENT_OPERATIONS) {
+                if (nodeJobsCounter.getInProgressJobsForNode(requestNodeId) >=
+                    nodeJobsCounter.getConcurrencyLimitForNode(requestNodeId)) {
                     LOGGER.debug("reached maximum concurrent operations for node {}", requestNodeId);
                     return true;
                 }
@@ -278,11 +278,14 @@ public class ShardingUpsertExecutor<TReq extends ShardRequest<TReq, TItem>, TIte
 
             final ShardLocation shardLocation = entry.getKey();
             nodeJobsCounter.increment(shardLocation.nodeId);
+            // the latency is measured per attempt, retries of rejected requests start a new measurement
+            AtomicLong attemptStartTime = new AtomicLong();
             ActionListener<ShardResponse> listener = new ActionListener<ShardResponse>() {
 
                 @Override
                 public void onResponse(ShardResponse shardResponse) {
                     nodeJobsCounter.decrement(shardLocation.nodeId);
+                    nodeJobsCounter.onResponse(shardLocation.nodeId, System.nanoTime() - attemptStartTime.get());
                     processShardResponse(shardResponse);
                     countdown();
                 }
@@ -306,11 +309,15 @@ public class ShardingUpsertExecutor<TReq extends ShardRequest<TReq, TItem>, TIte
                     LOGGER.debug("Executing retry Listener for nodeId: {} request: {}",
                         shardLocation.nodeId,
                         request);
+                    // retries are only done if the request has been rejected
+                    nodeJobsCounter.onRejection(shardLocation.nodeId);
+                    attemptStartTime.set(System.nanoTime());
                     requestExecutor.execute(request, l);
                 },
                 listener,
                 BACKOFF_POLICY
             );
+            attemptStartTime.set(System.nanoTime());
             requestExecutor.execute(request, listener);
         }
     }
@@ -28,31 +28,53 @@ import com.carrotsearch.hppc.IntObjectMap;
 import com.carrotsearch.hppc.IntSet;
 import com.carrotsearch.hppc.cursors.IntCursor;
 import com.carrotsearch.hppc.cursors.IntObjectCursor;
+import com.carrotsearch.hppc.cursors.ObjectCursor;
 import io.crate.analyze.symbol.Symbol;
 import io.crate.concurrent.CompletableFutures;
 import io.crate.data.BatchAccumulator;
 import io.crate.data.Bucket;
 import io.crate.data.Input;
 import io.crate.data.Row;
+import io.crate.executor.transport.StreamBucket;
 import io.crate.metadata.Functions;
 import io.crate.operation.InputRow;
 import io.crate.operation.fetch.FetchRowInputSymbolVisitor;
 import org.apache.logging.log4j.Logger;
 import org.elasticsearch.common.logging.Loggers;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
 
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Fetches the rows of a batch once {@link #batchSize()} rows have been accumulated.
+ * <p>
+ * The state of a batch is handed over to its result on {@link #processBatch(boolean)}, so that the rows of the
+ * next batch can already be accumulated and fetched while the result of the current batch is consumed.
+ * </p>
+ * <p>
+ * The batch size starts small to return the first rows quickly and is then adapted to the observed
+ * round trip time of the fetch requests and the size of the fetched rows, bounded by the fetchSize.
+ * </p>
+ */
 public class FetchBatchAccumulator implements BatchAccumulator<Row, Iterator<? extends Row>> {
 
     private final static Logger LOGGER = Loggers.getLogger(FetchBatchAccumulator.class);
 
+    static final int INITIAL_BATCH_SIZE = 1000;
+    private static final int MIN_BATCH_SIZE = 100;
+    private static final long TARGET_ROUND_TRIP_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+    private static final long MAX_BATCH_BYTES = new ByteSizeValue(32, ByteSizeUnit.MB).getBytes();
+
     private final FetchOperation fetchOperation;
     private final FetchProjectorContext context;
     private final int fetchSize;
     private final FetchRowInputSymbolVisitor.Context collectRowContext;
     private final InputRow outputRow;
-    private final ArrayList<Object[]> inputValues = new ArrayList<>();
+    private ArrayList<Object[]> inputValues = new ArrayList<>();
+    private volatile int batchSize;
 
     public FetchBatchAccumulator(FetchOperation fetchOperation,
                                  Functions functions,
@@ -62,6 +84,7 @@ public class FetchBatchAccumulator implements BatchAccumulator<Row, Iterator<? e
         this.fetchOperation = fetchOperation;
         this.context = fetchProjectorContext;
         this.fetchSize = fetchSize;
+        this.batchSize = Math.min(fetchSize, INITIAL_BATCH_SIZE);
 
         FetchRowInputSymbolVisitor rowInputSymbolVisitor = new FetchRowInputSymbolVisitor(functions);
         this.collectRowContext = new FetchRowInputSymbolVisitor.Context(fetchProjectorContext.tableToFetchSource);
@@ -76,7 +99,6 @@ public class FetchBatchAccumulator implements BatchAccumulator<Row, Iterator<? e
     @Override
     public void onItem(Row row) {
         Object[] cells = row.materialize();
-        collectRowContext.inputRow().cells = cells;
         for (int i : collectRowContext.fetchIdPositions()) {
             Object fetchId = cells[i];
             if (fetchId != null) {
@@ -88,11 +110,16 @@ public class FetchBatchAccumulator implements BatchAccumulator<Row, Iterator<? e
 
     @Override
     public CompletableFuture<Iterator<? extends Row>> processBatch(boolean isLastBatch) {
+        List<Object[]> batchInputValues = inputValues;
+        inputValues = new ArrayList<>(batchInputValues.size());
+        IntObjectHashMap<ReaderBucket> readerBuckets = context.takeReaderBuckets();
+        long startNanos = System.nanoTime();
+
         List<CompletableFuture<IntObjectMap<? extends Bucket>>> futures = new ArrayList<>();
         Iterator<Map.Entry<String, IntSet>> it = context.nodeToReaderIds.entrySet().iterator();
         while (it.hasNext()) {
             Map.Entry<String, IntSet> entry = it.next();
-            IntObjectHashMap<IntContainer> toFetch = generateToFetch(entry.getValue());
+            IntObjectHashMap<IntContainer> toFetch = generateToFetch(readerBuckets, entry.getValue());
             if (toFetch.isEmpty() && !isLastBatch) {
                 continue;
             }
@@ -106,7 +133,11 @@ public class FetchBatchAccumulator implements BatchAccumulator<Row, Iterator<? e
                 it.remove();
             }
         }
-        return CompletableFutures.allAsList(futures).thenApply(this::getRows);
+        return CompletableFutures.allAsList(futures).thenApply(results -> {
+            adaptBatchSize(batchInputValues.size(), bytesUsed(results), System.nanoTime() - startNanos);
+            applyResultToReaderBuckets(readerBuckets, results);
+            return getRows(batchInputValues, readerBuckets);
+        });
     }
 
     @Override
@@ -126,8 +157,7 @@ public class FetchBatchAccumulator implements BatchAccumulator<Row, Iterator<? e
         inputValues.clear();
     }
 
-    private Iterator<? extends Row> getRows(List<IntObjectMap<? extends Bucket>> results) {
-        applyResultToReaderBuckets(results);
+    private Iterator<? extends Row> getRows(List<Object[]> inputValues, IntObjectHashMap<ReaderBucket> readerBuckets) {
         return new Iterator<Row>() {
 
             final int[] fetchIdPositions = collectRowContext.fetchIdPositions();
@@ -159,7 +189,7 @@ public class FetchBatchAccumulator implements BatchAccumulator<Row, Iterator<? e
                     long fetchId = (long) fetchIdObj;
                     int readerId = FetchId.decodeReaderId(fetchId);
                     int docId = FetchId.decodeDocId(fetchId);
-                    ReaderBucket readerBucket = context.getReaderBucket(readerId);
+                    ReaderBucket readerBucket = readerBuckets.get(readerId);
                     assert readerBucket != null : "readerBucket must not be null";
                     setPartitionRow(partitionRows, i, readerBucket);
                     fetchRows[i].cells = readerBucket.get(docId);
@@ -170,7 +200,8 @@ public class FetchBatchAccumulator implements BatchAccumulator<Row, Iterator<? e
                 if (!hasNext()) {
                     // free up memory - in case we're streaming data to the client
                     // this would otherwise grow to hold the whole result in-memory
-                    reset();
+                    inputValues.clear();
+                    readerBuckets.clear();
                 }
                 return outputRow;
             }
@@ -179,25 +210,66 @@ public class FetchBatchAccumulator implements BatchAccumulator<Row, Iterator<? e
 
     @Override
     public int batchSize() {
-        return fetchSize;
+        return batchSize;
+    }
+
+    /**
+     * Doubles the batch size as long as the fetch requests return quickly and halves it if they take too long.
+     * The batch size is further bounded so that the fetched rows of a batch don't exceed {@link #MAX_BATCH_BYTES}.
+     *
+     * @param bytes the size of the fetched rows or 0 if unknown
+     */
+    private void adaptBatchSize(int numRows, long bytes, long roundTripNanos) {
+        if (numRows == 0) {
+            return;
+        }
+        long newBatchSize = batchSize;
+        if (roundTripNanos < TARGET_ROUND_TRIP_NANOS / 2) {
+            newBatchSize *= 2;
+        } else if (roundTripNanos > TARGET_ROUND_TRIP_NANOS) {
+            newBatchSize /= 2;
+        }
+        if (bytes > 0) {
+            long bytesPerRow = Math.max(1, bytes / numRows);
+            newBatchSize = Math.min(newBatchSize, MAX_BATCH_BYTES / bytesPerRow);
+        }
+        newBatchSize = Math.max(newBatchSize, Math.min(MIN_BATCH_SIZE, fetchSize));
+        batchSize = (int) Math.min(newBatchSize, fetchSize);
+    }
+
+    private static long bytesUsed(List<IntObjectMap<? extends Bucket>> results) {
+        long bytes = 0;
+        for (IntObjectMap<? extends Bucket> result : results) {
+            if (result == null) {
+                continue;
+            }
+            for (ObjectCursor<? extends Bucket> cursor : result.values()) {
+                if (cursor.value instanceof StreamBucket) {
+                    bytes += ((StreamBucket) cursor.value).ramBytesUsed();
+                }
+            }
+        }
+        return bytes;
     }
 
-    private void applyResultToReaderBuckets(List<IntObjectMap<? extends Bucket>> results) {
+    private static void applyResultToReaderBuckets(IntObjectHashMap<ReaderBucket> readerBuckets,
+                                                   List<IntObjectMap<? extends Bucket>> results) {
         for (IntObjectMap<? extends Bucket> result : results) {
             if (result == null) {
                 continue;
             }
             for (IntObjectCursor<? extends Bucket> cursor : result) {
-                ReaderBucket readerBucket = context.getReaderBucket(cursor.key);
+                ReaderBucket readerBucket = readerBuckets.get(cursor.key);
                 readerBucket.fetched(cursor.value);
             }
         }
     }
 
-    private IntObjectHashMap<IntContainer> generateToFetch(IntSet readerIds) {
+    private static IntObjectHashMap<IntContainer> generateToFetch(IntObjectHashMap<ReaderBucket> readerBuckets,
+                                                                  IntSet readerIds) {
         IntObjectHashMap<IntContainer> toFetch = new IntObjectHashMap<>(readerIds.size());
         for (IntCursor readerIdCursor : readerIds) {
-            ReaderBucket readerBucket = context.readerBucket(readerIdCursor.value);
+            ReaderBucket readerBucket = readerBuckets.get(readerIdCursor.value);
             if (readerBucket != null && readerBucket.fetchRequired() && readerBucket.docs.size() > 0) {
                 toFetch.put(readerIdCursor.value, readerBucket.docs.keys());
             }
@@ -61,7 +61,8 @@ public class FetchProjector implements Projector {
                 outputSymbols,
                 fetchProjectorContext,
                 fetchSize
-            )
+            ),
+            true
         );
     }
 
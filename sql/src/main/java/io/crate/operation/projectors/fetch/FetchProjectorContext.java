@@ -26,6 +26,7 @@ import com.carrotsearch.hppc.IntObjectHashMap;
 import com.carrotsearch.hppc.IntObjectMap;
 import com.carrotsearch.hppc.IntSet;
 import com.carrotsearch.hppc.cursors.IntCursor;
+import com.carrotsearch.hppc.cursors.IntObjectCursor;
 import com.carrotsearch.hppc.cursors.ObjectCursor;
 import io.crate.Streamer;
 import io.crate.analyze.symbol.Symbols;
@@ -48,7 +49,7 @@ public class FetchProjectorContext {
 
     private final TreeMap<Integer, String> readerIdToIndex;
     private final Map<String, TableIdent> indexToTable;
-    private final IntObjectHashMap<ReaderBucket> readerBuckets = new IntObjectHashMap<>();
+    private IntObjectHashMap<ReaderBucket> readerBuckets = new IntObjectHashMap<>();
     private Map<String, IntObjectHashMap<Streamer[]>> nodeIdToReaderIdToStreamers;
 
     public FetchProjectorContext(Map<TableIdent, FetchSource> tableToFetchSource,
@@ -62,10 +63,6 @@ public class FetchProjectorContext {
     }
 
 
-    ReaderBucket readerBucket(int readerId) {
-        return readerBuckets.get(readerId);
-    }
-
     ReaderBucket require(long fetchId) {
         int readerId = FetchId.decodeReaderId(fetchId);
         int docId = FetchId.decodeDocId(fetchId);
@@ -100,10 +97,6 @@ public class FetchProjectorContext {
         return partitionValues;
     }
 
-    ReaderBucket getReaderBucket(int readerId) {
-        return readerBuckets.get(readerId);
-    }
-
     @Nullable
     private FetchSource getFetchSource(int readerId) {
         String index = readerIdToIndex.floorEntry(readerId).getValue();
@@ -130,6 +123,19 @@ public class FetchProjectorContext {
         return nodeIdToReaderIdToStreamers;
     }
 
+    /**
+     * Hands the reader buckets with the docs required so far over to the caller and starts with empty ones.
+     * This allows to require the docs of the next batch while the rows of the current batch are still in use.
+     */
+    IntObjectHashMap<ReaderBucket> takeReaderBuckets() {
+        IntObjectHashMap<ReaderBucket> buckets = readerBuckets;
+        readerBuckets = new IntObjectHashMap<>(buckets.size());
+        for (IntObjectCursor<ReaderBucket> cursor : buckets) {
+            readerBuckets.put(cursor.key, cursor.value.emptyCopy());
+        }
+        return buckets;
+    }
+
     void clearBuckets() {
         for (ObjectCursor<ReaderBucket> bucketCursor : readerBuckets.values()) {
             bucketCursor.value.docs.clear();
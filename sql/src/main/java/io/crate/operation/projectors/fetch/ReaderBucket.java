@@ -46,6 +46,10 @@ class ReaderBucket {
         docs.putIfAbsent(doc, null);
     }
 
+    ReaderBucket emptyCopy() {
+        return new ReaderBucket(fetchRequired, partitionValues);
+    }
+
     Object[] get(int doc) {
         return docs.get(doc);
     }
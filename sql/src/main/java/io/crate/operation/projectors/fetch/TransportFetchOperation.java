@@ -66,7 +66,8 @@ public class TransportFetchOperation implements FetchOperation {
         transportFetchNodeAction.execute(
             nodeId,
             nodeIdToReaderIdToStreamers.get(nodeId),
-            new NodeFetchRequest(jobId, executionPhaseId, closeContext, toFetch),
+            new NodeFetchRequest(jobId, executionPhaseId, closeContext, toFetch,
+                transportFetchNodeAction.compressionThreshold()),
             ramAccountingContext,
             listener);
         return listener;
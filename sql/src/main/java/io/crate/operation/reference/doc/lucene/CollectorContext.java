@@ -23,7 +23,6 @@ package io.crate.operation.reference.doc.lucene;
 
 import io.crate.operation.collect.collectors.CollectorFieldsVisitor;
 import org.elasticsearch.index.fielddata.IndexFieldDataService;
-import org.elasticsearch.search.lookup.SourceLookup;
 
 public class CollectorContext {
 
@@ -31,7 +30,7 @@ public class CollectorContext {
     private final CollectorFieldsVisitor fieldsVisitor;
     private final int jobSearchContextId;
 
-    private SourceLookup sourceLookup;
+    private PartialSourceLookup sourceLookup;
 
     public CollectorContext(IndexFieldDataService fieldData,
                             CollectorFieldsVisitor visitor) {
@@ -58,9 +57,9 @@ public class CollectorContext {
         return fieldData;
     }
 
-    public SourceLookup sourceLookup() {
+    public PartialSourceLookup sourceLookup() {
         if (sourceLookup == null) {
-            sourceLookup = new SourceLookup();
+            sourceLookup = new PartialSourceLookup();
         }
         return sourceLookup;
     }
@@ -27,7 +27,6 @@ import io.crate.metadata.doc.DocSysColumns;
 import io.crate.operation.collect.collectors.CollectorFieldsVisitor;
 import org.apache.lucene.index.LeafReaderContext;
 import org.elasticsearch.common.xcontent.XContentHelper;
-import org.elasticsearch.search.lookup.SourceLookup;
 
 import java.util.Map;
 
@@ -74,7 +73,7 @@ public class DocCollectorExpression extends LuceneCollectorExpression<Map<String
                 // for example:
                 //      sourceExtractor might read byte as int and
                 //      then eq(byte, byte) would get eq(byte, int) and fail
-                return reference.valueType().value(sourceLookup.extractValue(fqn));
+                return reference.valueType().value(sourceLookup.get(pathIdx));
             }
         };
     }
@@ -82,7 +81,8 @@ public class DocCollectorExpression extends LuceneCollectorExpression<Map<String
     public abstract static class ChildDocCollectorExpression<ReturnType> extends
         LuceneCollectorExpression<ReturnType> {
 
-        protected SourceLookup sourceLookup;
+        protected PartialSourceLookup sourceLookup;
+        protected int pathIdx;
         private LeafReaderContext context;
 
         ChildDocCollectorExpression(String columnName) {
@@ -102,6 +102,7 @@ public class DocCollectorExpression extends LuceneCollectorExpression<Map<String
         @Override
         public void startCollect(CollectorContext context) {
             sourceLookup = context.sourceLookup();
+            pathIdx = sourceLookup.register(columnName);
         }
     }
 }
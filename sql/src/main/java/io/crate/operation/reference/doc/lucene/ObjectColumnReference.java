@@ -23,13 +23,13 @@ package io.crate.operation.reference.doc.lucene;
 
 
 import org.apache.lucene.index.LeafReaderContext;
-import org.elasticsearch.search.lookup.SourceLookup;
 
 import java.util.Map;
 
 public class ObjectColumnReference extends LuceneCollectorExpression<Map<String, Object>> {
 
-    private SourceLookup sourceLookup;
+    private PartialSourceLookup sourceLookup;
+    private int pathIdx;
     private LeafReaderContext context;
     private Map<String, Object> value;
 
@@ -45,7 +45,7 @@ public class ObjectColumnReference extends LuceneCollectorExpression<Map<String,
     @Override
     public void setNextDocId(int doc) {
         sourceLookup.setSegmentAndDocument(context, doc);
-        value = (Map<String, Object>) sourceLookup.extractValue(columnName);
+        value = (Map<String, Object>) sourceLookup.get(pathIdx);
     }
 
     @Override
@@ -56,5 +56,6 @@ public class ObjectColumnReference extends LuceneCollectorExpression<Map<String,
     @Override
     public void startCollect(CollectorContext context) {
         sourceLookup = context.sourceLookup();
+        pathIdx = sourceLookup.register(columnName);
     }
 }
@@ -0,0 +1,225 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.operation.reference.doc.lucene;
+
+import com.google.common.annotations.VisibleForTesting;
+import org.apache.lucene.index.LeafReaderContext;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.index.fieldvisitor.FieldsVisitor;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Provides the values of registered paths (like {@code o.a.b}) within the _source of a document.
+ * <p>
+ * Instead of parsing the whole source into a map, the source is streamed through a {@link XContentParser}:
+ * Subtrees which don't contain any of the registered paths are skipped and parsing stops as soon as
+ * the values of all paths have been found. The source of a document is loaded and parsed at most once,
+ * on the first access of a value, no matter how many expressions use the lookup.
+ * </p>
+ * <p>
+ * The values are the same as if they were extracted from the source map:
+ * If a path leads through an array, the value is the list of the values found within the array elements.
+ * Keys containing dots aren't resolved, as column names can't contain dots.
+ * </p>
+ */
+public class PartialSourceLookup {
+
+    private final PathNode root = new PathNode();
+    private final FieldsVisitor fieldsVisitor = new FieldsVisitor(true);
+
+    private int numPaths = 0;
+    private Object[] values = new Object[0];
+    private int numMissingValues;
+
+    private LeafReaderContext readerContext;
+    private int doc = -1;
+    private BytesReference source;
+    private boolean parsed = false;
+
+    private static class PathNode {
+
+        private final Map<String, PathNode> children = new HashMap<>();
+        private int pathIdx = -1;
+    }
+
+    /**
+     * Registers a path whose value should be extracted from the source.
+     *
+     * @param path the path with its elements separated by dots
+     * @return the index to use to retrieve the value with {@link #get(int)}
+     */
+    public int register(String path) {
+        PathNode node = root;
+        for (String element : path.split("\\.")) {
+            node = node.children.computeIfAbsent(element, k -> new PathNode());
+        }
+        if (node.pathIdx < 0) {
+            node.pathIdx = numPaths++;
+            values = new Object[numPaths];
+            parsed = false;
+        }
+        return node.pathIdx;
+    }
+
+    public void setSegmentAndDocument(LeafReaderContext context, int doc) {
+        if (this.readerContext == context && this.doc == doc) {
+            return;
+        }
+        this.readerContext = context;
+        this.doc = doc;
+        source = null;
+        parsed = false;
+    }
+
+    @VisibleForTesting
+    void setSource(BytesReference source) {
+        this.source = source;
+        parsed = false;
+    }
+
+    /**
+     * @return the value of the path registered with the given index or null if the source doesn't contain it
+     */
+    @Nullable
+    public Object get(int pathIdx) {
+        if (!parsed) {
+            if (source == null) {
+                source = loadSource();
+            }
+            parse(source);
+            parsed = true;
+        }
+        return values[pathIdx];
+    }
+
+    private BytesReference loadSource() {
+        fieldsVisitor.reset();
+        try {
+            readerContext.reader().document(doc, fieldsVisitor);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return fieldsVisitor.source();
+    }
+
+    private void parse(@Nullable BytesReference source) {
+        Arrays.fill(values, null);
+        numMissingValues = numPaths;
+        if (source == null || numPaths == 0) {
+            return;
+        }
+        try (XContentParser parser = XContentFactory.xContent(source).createParser(source)) {
+            if (parser.nextToken() == XContentParser.Token.START_OBJECT) {
+                parseObject(parser, root);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return false if parsing can stop because the values of all paths have been found
+     */
+    private boolean parseObject(XContentParser parser, PathNode node) throws IOException {
+        while (parser.nextToken() == XContentParser.Token.FIELD_NAME) {
+            PathNode child = node.children.get(parser.currentName());
+            XContentParser.Token token = parser.nextToken();
+            if (child == null) {
+                parser.skipChildren();
+            } else if (child.pathIdx >= 0 || token == XContentParser.Token.START_ARRAY) {
+                setValues(child, readValue(parser, token));
+                if (numMissingValues == 0) {
+                    return false;
+                }
+            } else if (token == XContentParser.Token.START_OBJECT) {
+                if (!parseObject(parser, child)) {
+                    return false;
+                }
+            }
+            // a scalar value where an object is expected; the values of the paths below are null
+        }
+        return true;
+    }
+
+    @Nullable
+    private static Object readValue(XContentParser parser, XContentParser.Token token) throws IOException {
+        switch (token) {
+            case START_OBJECT:
+                return parser.map();
+            case START_ARRAY:
+                return parser.list();
+            case VALUE_STRING:
+                return parser.text();
+            case VALUE_NUMBER:
+                return parser.numberValue();
+            case VALUE_BOOLEAN:
+                return parser.booleanValue();
+            case VALUE_EMBEDDED_OBJECT:
+                return parser.binaryValue();
+            default:
+                return null;
+        }
+    }
+
+    private void setValues(PathNode node, @Nullable Object value) {
+        if (value == null) {
+            return;
+        }
+        if (node.pathIdx >= 0 && values[node.pathIdx] == null) {
+            values[node.pathIdx] = value;
+            numMissingValues--;
+        }
+        for (Map.Entry<String, PathNode> entry : node.children.entrySet()) {
+            setValues(entry.getValue(), childValue(value, entry.getKey()));
+        }
+    }
+
+    @Nullable
+    private static Object childValue(Object value, String key) {
+        if (value instanceof Map) {
+            return ((Map) value).get(key);
+        }
+        if (value instanceof List) {
+            List<?> list = (List<?>) value;
+            List<Object> childValues = new ArrayList<>(list.size());
+            for (Object element : list) {
+                Object childValue = childValue(element, key);
+                if (childValue != null) {
+                    childValues.add(childValue);
+                }
+            }
+            return childValues;
+        }
+        return null;
+    }
+}
@@ -24,9 +24,13 @@ package io.crate.operation.reference.file;
 import io.crate.metadata.ColumnIdent;
 import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.xcontent.XContentFactory;
 import org.elasticsearch.common.xcontent.XContentHelper;
 
 import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.LinkedList;
 import java.util.Map;
 
@@ -37,6 +41,13 @@ public class LineContext {
 
     @Nullable
     public BytesRef sourceAsBytesRef() {
+        if (rawSource == null && parsedSource != null) {
+            try {
+                rawSource = BytesReference.toBytes(XContentFactory.jsonBuilder().map(parsedSource).bytes());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
         if (rawSource != null) {
             return new BytesRef(rawSource);
         }
@@ -90,4 +101,13 @@ public class LineContext {
         this.rawSource = bytes;
         this.parsedSource = null;
     }
+
+    /**
+     * Sets the source of a line which has already been parsed.
+     * The raw source is only generated from it if requested.
+     */
+    public void parsedSource(Map<String, Object> source) {
+        this.rawSource = null;
+        this.parsedSource = source;
+    }
 }
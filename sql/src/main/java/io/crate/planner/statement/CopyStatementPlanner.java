@@ -143,7 +143,9 @@ public class CopyStatementPlanner {
             toCollect,
             projections,
             copyFrom.settings().get("compression", null),
-            copyFrom.settings().getAsBoolean("shared", null)
+            copyFrom.settings().getAsBoolean("shared", null),
+            FileUriCollectPhase.InputFormat.valueOf(
+                copyFrom.settings().get("format", "json").toUpperCase(Locale.ENGLISH))
         );
 
         Collect collect = new Collect(collectPhase, TopN.NO_LIMIT, 0, 1, 1, null);
@@ -28,8 +28,11 @@ import io.crate.breaker.CircuitBreakerModule;
 import io.crate.cluster.gracefulstop.DecommissionAllocationDecider;
 import io.crate.cluster.gracefulstop.DecommissioningService;
 import io.crate.executor.transport.TransportExecutorModule;
+import io.crate.executor.transport.TransportFetchNodeAction;
+import io.crate.executor.transport.TransportShardUpsertAction;
 import io.crate.jobs.JobContextService;
 import io.crate.jobs.JobModule;
+import io.crate.jobs.PageDownstreamContext;
 import io.crate.jobs.transport.NodeDisconnectJobMonitorService;
 import io.crate.lucene.ArrayMapperService;
 import io.crate.metadata.MetaDataModule;
@@ -111,6 +114,14 @@ public class SQLPlugin extends Plugin implements ActionPlugin, MapperPlugin, Clu
         settings.add(PostgresNetty.PSQL_ENABLED_SETTING.setting());
         settings.add(PostgresNetty.PSQL_PORT_SETTING.setting());
 
+        // Bulk transport settings are node settings
+        settings.add(TransportShardUpsertAction.BULK_COMPRESS_SETTING.setting());
+
+        // Distributed execution settings are node settings
+        settings.add(PageDownstreamContext.PREFETCH_SETTING.setting());
+        settings.add(TransportFetchNodeAction.COMPRESS_SETTING.setting());
+        settings.add(TransportFetchNodeAction.COMPRESS_THRESHOLD_SETTING.setting());
+
         // Authentication settings are node settings
         settings.add(AuthenticationProvider.AUTH_HOST_BASED_ENABLED_SETTING.setting());
         settings.add(AuthenticationProvider.AUTH_HOST_BASED_CONFIG_SETTING.setting());
@@ -0,0 +1,163 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.rest.action;
+
+import io.crate.action.sql.SQLOperations;
+import io.crate.analyze.symbol.Field;
+import io.crate.operation.user.User;
+import org.apache.logging.log4j.Logger;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.inject.Singleton;
+import org.elasticsearch.common.logging.Loggers;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.threadpool.ThreadPool;
+
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Registry of suspended result sets of the HTTP endpoint.
+ * <p>
+ * A cursor keeps the session whose portal (named after the cursor id) has been suspended after
+ * {@code fetch_size} rows, so that the next rows can be fetched by a later request without re-executing
+ * the query. Cursors which haven't been used within their keep alive time are closed.
+ * A cursor can only be used by the user who created it.
+ * </p>
+ */
+@Singleton
+public class HttpCursors {
+
+    private static final Logger LOGGER = Loggers.getLogger(HttpCursors.class);
+
+    static final TimeValue DEFAULT_KEEP_ALIVE = TimeValue.timeValueMinutes(1);
+    private static final TimeValue REAPER_INTERVAL = TimeValue.timeValueSeconds(10);
+
+    private final ConcurrentMap<String, Cursor> cursors = ConcurrentCollections.newConcurrentMap();
+
+    static class Cursor {
+
+        private final String id;
+        private final SQLOperations.Session session;
+        @Nullable
+        private final String userName;
+        private final List<Field> outputFields;
+        private final int fetchSize;
+        private final long keepAliveNanos;
+        private volatile long expiresAtNanos;
+
+        Cursor(String id,
+               SQLOperations.Session session,
+               @Nullable User user,
+               List<Field> outputFields,
+               int fetchSize,
+               TimeValue keepAlive) {
+            this.id = id;
+            this.session = session;
+            this.userName = userName(user);
+            this.outputFields = outputFields;
+            this.fetchSize = fetchSize;
+            this.keepAliveNanos = keepAlive.nanos();
+        }
+
+        String id() {
+            return id;
+        }
+
+        SQLOperations.Session session() {
+            return session;
+        }
+
+        List<Field> outputFields() {
+            return outputFields;
+        }
+
+        int fetchSize() {
+            return fetchSize;
+        }
+    }
+
+    @Inject
+    public HttpCursors(ThreadPool threadPool) {
+        threadPool.scheduleWithFixedDelay(() -> closeExpired(System.nanoTime()), REAPER_INTERVAL, ThreadPool.Names.GENERIC);
+    }
+
+    HttpCursors() {
+    }
+
+    /**
+     * Makes the cursor available to {@link #acquire(String, User)} until its keep alive time elapsed.
+     * Must be called before the response containing the cursor id is sent.
+     */
+    void register(Cursor cursor) {
+        cursor.expiresAtNanos = System.nanoTime() + cursor.keepAliveNanos;
+        cursors.put(cursor.id(), cursor);
+    }
+
+    /**
+     * Removes the cursor from the registry to grant exclusive access to it.
+     * Use {@link #register(Cursor)} to make it available again after the next rows have been fetched.
+     *
+     * @return the cursor or null if there is no cursor with the given id, if it expired or if it has been created by
+     *         another user
+     */
+    @Nullable
+    Cursor acquire(String id, @Nullable User user) {
+        Cursor cursor = cursors.get(id);
+        if (cursor == null || Objects.equals(cursor.userName, userName(user)) == false) {
+            return null;
+        }
+        if (cursors.remove(id, cursor) == false) {
+            return null;
+        }
+        if (cursor.expiresAtNanos - System.nanoTime() < 0) {
+            close(cursor);
+            return null;
+        }
+        return cursor;
+    }
+
+    @Nullable
+    private static String userName(@Nullable User user) {
+        return user == null ? null : user.name();
+    }
+
+    void closeExpired(long nowNanos) {
+        for (Cursor cursor : cursors.values()) {
+            if (cursor.expiresAtNanos - nowNanos < 0 && cursors.remove(cursor.id(), cursor)) {
+                LOGGER.debug("Closing expired cursor {}", cursor.id());
+                close(cursor);
+            }
+        }
+    }
+
+    static void close(Cursor cursor) {
+        try {
+            cursor.session().close();
+        } catch (Throwable t) {
+            LOGGER.warn("Failed to close cursor " + cursor.id(), t);
+        }
+    }
+}
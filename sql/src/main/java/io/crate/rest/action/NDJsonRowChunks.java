@@ -0,0 +1,158 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.rest.action;
+
+import io.crate.exceptions.SQLParseException;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.common.xcontent.json.JsonXContent;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Splits a newline delimited JSON source into chunks of rows.
+ * <p>
+ * The source is parsed lazily, one line per row, so only the rows of the current chunk are materialized.
+ * All rows of a chunk have the same columns; a line with a different set of keys starts a new chunk.
+ * Empty lines are skipped.
+ * </p>
+ */
+class NDJsonRowChunks {
+
+    private static final byte LINE_DELIMITER = '\n';
+
+    private final BytesReference source;
+    private final int maxChunkSize;
+    private int offset = 0;
+    private int lineNumber = 0;
+
+    /**
+     * the row which didn't fit into the previous chunk because its columns differ
+     */
+    @Nullable
+    private Map<String, Object> pendingRow = null;
+
+    static class Chunk {
+
+        private final List<String> columns;
+        private final List<Object[]> rows;
+
+        private Chunk(List<String> columns, List<Object[]> rows) {
+            this.columns = columns;
+            this.rows = rows;
+        }
+
+        List<String> columns() {
+            return columns;
+        }
+
+        List<Object[]> rows() {
+            return rows;
+        }
+    }
+
+    NDJsonRowChunks(BytesReference source, int maxChunkSize) {
+        assert maxChunkSize > 0 : "maxChunkSize must be greater than 0";
+        this.source = source;
+        this.maxChunkSize = maxChunkSize;
+    }
+
+    /**
+     * @return the next chunk of rows or null if the source is exhausted
+     */
+    @Nullable
+    Chunk next() {
+        Map<String, Object> row = pendingRow == null ? nextRow() : pendingRow;
+        pendingRow = null;
+        if (row == null) {
+            return null;
+        }
+        List<String> columns = new ArrayList<>(row.keySet());
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(values(columns, row));
+        while (rows.size() < maxChunkSize) {
+            row = nextRow();
+            if (row == null) {
+                break;
+            }
+            if (row.size() != columns.size() || !row.keySet().containsAll(columns)) {
+                pendingRow = row;
+                break;
+            }
+            rows.add(values(columns, row));
+        }
+        return new Chunk(columns, rows);
+    }
+
+    private static Object[] values(List<String> columns, Map<String, Object> row) {
+        Object[] values = new Object[columns.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = row.get(columns.get(i));
+        }
+        return values;
+    }
+
+    @Nullable
+    private Map<String, Object> nextRow() {
+        int length = source.length();
+        while (offset < length) {
+            int lineEnd = offset;
+            while (lineEnd < length && source.get(lineEnd) != LINE_DELIMITER) {
+                lineEnd++;
+            }
+            BytesReference line = source.slice(offset, lineEnd - offset);
+            offset = lineEnd + 1;
+            lineNumber++;
+            if (isBlank(line)) {
+                continue;
+            }
+            return parseLine(line);
+        }
+        return null;
+    }
+
+    private Map<String, Object> parseLine(BytesReference line) {
+        try (XContentParser parser = JsonXContent.jsonXContent.createParser(line)) {
+            if (parser.nextToken() != XContentParser.Token.START_OBJECT) {
+                throw new SQLParseException("Line " + lineNumber + " doesn't contain a JSON object");
+            }
+            return parser.mapOrdered();
+        } catch (SQLParseException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new SQLParseException("Failed to parse line " + lineNumber, e);
+        }
+    }
+
+    private static boolean isBlank(BytesReference line) {
+        for (int i = 0; i < line.length(); i++) {
+            if (!Character.isWhitespace(line.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -34,6 +34,7 @@ import org.elasticsearch.rest.RestChannel;
 import org.elasticsearch.rest.RestStatus;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.io.IOException;
 import java.util.List;
 
@@ -50,15 +51,37 @@ class RestResultSetReceiver extends BaseResultReceiver {
     private final RowAccounting rowAccounting;
     private long rowCount;
 
+    @Nullable
+    private final HttpCursors.Cursor cursor;
+    @Nullable
+    private final HttpCursors cursors;
+    private boolean suspended = false;
+
     RestResultSetReceiver(RestChannel channel,
                           List<Field> outputFields,
                           long startTime,
                           RowAccounting rowAccounting,
                           boolean includeTypesOnResponse) {
+        this(channel, outputFields, startTime, rowAccounting, includeTypesOnResponse, null, null);
+    }
+
+    /**
+     * @param cursor if not null, the receiver responds with the rows received so far and the id of the cursor
+     *               if the result set gets suspended (see {@link #batchFinished()}).
+     */
+    RestResultSetReceiver(RestChannel channel,
+                          List<Field> outputFields,
+                          long startTime,
+                          RowAccounting rowAccounting,
+                          boolean includeTypesOnResponse,
+                          @Nullable HttpCursors.Cursor cursor,
+                          @Nullable HttpCursors cursors) {
         this.channel = channel;
         this.outputFields = outputFields;
         this.startTime = startTime;
         this.rowAccounting = rowAccounting;
+        this.cursor = cursor;
+        this.cursors = cursors;
         ResultToXContentBuilder tmpBuilder;
         try {
             tmpBuilder = ResultToXContentBuilder.builder(channel);
@@ -86,8 +109,39 @@ class RestResultSetReceiver extends BaseResultReceiver {
         }
     }
 
+    @Override
+    public void batchFinished() {
+        assert cursor != null && cursors != null : "batchFinished must only be called if a cursor is used";
+        BytesRestResponse response;
+        try {
+            response = new BytesRestResponse(RestStatus.OK, builder
+                .finishRows()
+                .rowCount(rowCount)
+                .cursor(cursor.id())
+                .duration(startTime)
+                .build());
+        } catch (Throwable t) {
+            fail(t);
+            return;
+        }
+        suspended = true;
+        rowAccounting.close();
+        // register before responding, the client may use the cursor as soon as it receives the response
+        cursors.register(cursor);
+        try {
+            channel.sendResponse(response);
+        } catch (Throwable e) {
+            LOGGER.error(e);
+        }
+    }
+
     @Override
     public void allFinished(boolean interrupted) {
+        if (suspended) {
+            // the cursor has been closed, the response has already been sent in batchFinished
+            super.allFinished(interrupted);
+            return;
+        }
         BytesRestResponse response;
         try {
             response = new BytesRestResponse(RestStatus.OK, finishBuilder());
@@ -114,6 +168,10 @@ class RestResultSetReceiver extends BaseResultReceiver {
             LOGGER.error("failed to send failure response", e);
         } finally {
             rowAccounting.close();
+            if (cursor != null) {
+                // the cursor isn't registered anymore, so nothing else would release its session
+                HttpCursors.close(cursor);
+            }
             super.fail(t);
         }
     }
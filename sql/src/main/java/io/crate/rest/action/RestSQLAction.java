@@ -32,23 +32,30 @@ import io.crate.analyze.symbol.Symbols;
 import io.crate.breaker.CrateCircuitBreakerService;
 import io.crate.breaker.RamAccountingContext;
 import io.crate.breaker.RowAccounting;
+import io.crate.concurrent.CompletableFutures;
 import io.crate.exceptions.SQLExceptions;
 import io.crate.exceptions.SQLParseException;
 import io.crate.operation.auth.AuthenticationProvider;
 import io.crate.operation.user.User;
 import io.crate.operation.user.UserManager;
 import io.crate.operation.user.UserManagerProvider;
+import io.crate.sql.Identifiers;
 import org.elasticsearch.client.node.NodeClient;
+import org.elasticsearch.common.UUIDs;
 import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.rest.*;
 
+import javax.annotation.Nullable;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 import static io.crate.action.sql.SQLOperations.Session.UNNAMED;
 
@@ -57,23 +64,46 @@ public class RestSQLAction extends BaseRestHandler {
     private static final String REQUEST_HEADER_USER = "User";
     private static final String REQUEST_HEADER_SCHEMA = "Default-Schema";
     private static final int DEFAULT_SOFT_LIMIT = 10_000;
+    private static final String PARAM_BULK_PARALLELISM = "bulk_parallelism";
+
+    /**
+     * Number of bulk_args which are executed as one bulk operation if bulk_parallelism is greater than 1
+     */
+    private static final int PARALLEL_BULK_CHUNK_SIZE = 1_000;
+
+    private static final String PARAM_INGEST_TABLE = "table";
+
+    /**
+     * Maximum number of NDJSON rows which are parsed and inserted using one bulk operation
+     */
+    private static final int INGEST_BULK_SIZE = 1_000;
+
+    private static final String PARAM_CURSOR_ID = "cursor_id";
+    private static final String PARAM_FETCH_SIZE = "fetch_size";
+    private static final String PARAM_KEEP_ALIVE = "keep_alive";
 
     private final SQLOperations sqlOperations;
     private final UserManager userManager;
     private final CircuitBreaker circuitBreaker;
+    private final HttpCursors httpCursors;
 
     @Inject
     public RestSQLAction(Settings settings,
                          RestController controller,
                          SQLOperations sqlOperations,
                          UserManagerProvider userManagerProvider,
-                         CrateCircuitBreakerService breakerService) {
+                         CrateCircuitBreakerService breakerService,
+                         HttpCursors httpCursors) {
         super(settings);
         this.sqlOperations = sqlOperations;
         this.userManager = userManagerProvider.get();
         this.circuitBreaker = breakerService.getBreaker(CrateCircuitBreakerService.QUERY);
+        this.httpCursors = httpCursors;
 
         controller.registerHandler(RestRequest.Method.POST, "/_sql", this);
+        controller.registerHandler(RestRequest.Method.POST, "/_sql/_ingest/{" + PARAM_INGEST_TABLE + "}", this);
+        controller.registerHandler(RestRequest.Method.POST, "/_sql/_cursor/{" + PARAM_CURSOR_ID + "}", this);
+        controller.registerHandler(RestRequest.Method.DELETE, "/_sql/_cursor/{" + PARAM_CURSOR_ID + "}", this);
     }
 
     private static void sendBadRequest(RestChannel channel, String errorMsg) throws IOException {
@@ -85,9 +115,17 @@ public class RestSQLAction extends BaseRestHandler {
 
     @Override
     protected RestChannelConsumer prepareRequest(RestRequest request, NodeClient client) throws IOException {
+        String cursorId = request.param(PARAM_CURSOR_ID);
+        if (cursorId != null) {
+            return executeCursorRequest(cursorId, request);
+        }
         if (!request.hasContent()) {
             return channel -> sendBadRequest(channel, "missing request body");
         }
+        String ingestTable = request.param(PARAM_INGEST_TABLE);
+        if (ingestTable != null) {
+            return executeIngestRequest(ingestTable, request);
+        }
 
         SQLXContentSourceContext context = new SQLXContentSourceContext();
         SQLXContentSourceParser parser = new SQLXContentSourceParser(context);
@@ -117,7 +155,7 @@ public class RestSQLAction extends BaseRestHandler {
 
     @Override
     protected Set<String> responseParams() {
-        return ImmutableSet.of("types");
+        return ImmutableSet.of("types", PARAM_BULK_PARALLELISM, PARAM_FETCH_SIZE, PARAM_KEEP_ALIVE);
     }
 
     private static Set<Option> toOptions(RestRequest request) {
@@ -137,12 +175,31 @@ public class RestSQLAction extends BaseRestHandler {
         return userManager.findUser(user);
     }
 
-    private RestChannelConsumer executeSimpleRequest(SQLXContentSourceContext context, final RestRequest request) {
-        SQLOperations.Session session = sqlOperations.createSession(
+    private SQLOperations.Session createSession(RestRequest request) {
+        return createSession(request, DEFAULT_SOFT_LIMIT);
+    }
+
+    private SQLOperations.Session createSession(RestRequest request, int defaultLimit) {
+        return createSession(request, userFromRequest(request), defaultLimit);
+    }
+
+    private SQLOperations.Session createSession(RestRequest request, @Nullable User user, int defaultLimit) {
+        return sqlOperations.createSession(
             request.header(REQUEST_HEADER_SCHEMA),
-            userFromRequest(request),
+            user,
             toOptions(request),
-            DEFAULT_SOFT_LIMIT);
+            defaultLimit);
+    }
+
+    private RestChannelConsumer executeSimpleRequest(SQLXContentSourceContext context, final RestRequest request) {
+        int fetchSize = request.paramAsInt(PARAM_FETCH_SIZE, 0);
+        if (fetchSize < 0) {
+            return channel -> sendBadRequest(channel, PARAM_FETCH_SIZE + " must not be negative");
+        }
+        if (fetchSize > 0) {
+            return executeWithCursor(context, request, fetchSize);
+        }
+        SQLOperations.Session session = createSession(request);
         try {
             final long startTime = System.nanoTime();
             session.parse(UNNAMED, context.stmt(), Collections.emptyList());
@@ -182,12 +239,100 @@ public class RestSQLAction extends BaseRestHandler {
         }
     }
 
+    /**
+     * Executes a query which returns at most {@code fetchSize} rows per response.
+     * If there are more rows, the response contains a cursor id which can be used to fetch the next rows
+     * from the suspended result set, see {@link HttpCursors}. No soft limit is applied to such queries.
+     */
+    private RestChannelConsumer executeWithCursor(SQLXContentSourceContext context,
+                                                  final RestRequest request,
+                                                  int fetchSize) {
+        User user = userFromRequest(request);
+        SQLOperations.Session session = createSession(request, user, 0);
+        try {
+            final long startTime = System.nanoTime();
+            TimeValue keepAlive = request.paramAsTime(PARAM_KEEP_ALIVE, HttpCursors.DEFAULT_KEEP_ALIVE);
+            String cursorId = UUIDs.randomBase64UUID();
+            session.parse(UNNAMED, context.stmt(), Collections.emptyList());
+            List<Object> args = context.args() == null ? Collections.emptyList() : Arrays.asList(context.args());
+            session.bind(cursorId, UNNAMED, args, null);
+            List<Field> outputFields = session.describe('P', cursorId);
+            if (outputFields == null) {
+                throw new UnsupportedOperationException(
+                    PARAM_FETCH_SIZE + " is only supported for statements which return a result set");
+            }
+            HttpCursors.Cursor cursor = new HttpCursors.Cursor(cursorId, session, user, outputFields, fetchSize, keepAlive);
+            boolean includeTypes = request.paramAsBoolean("types", false);
+            return channel -> fetchFromCursor(channel, cursor, fetchSize, startTime, includeTypes);
+        } catch (Throwable t) {
+            session.close();
+            return channel -> errorResponse(channel, t);
+        }
+    }
+
+    /**
+     * Fetches the next rows of a cursor ({@code POST}) or closes it ({@code DELETE})
+     */
+    private RestChannelConsumer executeCursorRequest(String cursorId, final RestRequest request) {
+        final long startTime = System.nanoTime();
+        int requestedFetchSize = request.paramAsInt(PARAM_FETCH_SIZE, 0);
+        if (requestedFetchSize < 0) {
+            return channel -> sendBadRequest(channel, PARAM_FETCH_SIZE + " must not be negative");
+        }
+        HttpCursors.Cursor cursor = httpCursors.acquire(cursorId, userFromRequest(request));
+        if (cursor == null) {
+            return channel -> sendBadRequest(channel, "Cursor '" + cursorId + "' doesn't exist or has expired");
+        }
+        if (request.method() == RestRequest.Method.DELETE) {
+            HttpCursors.close(cursor);
+            return channel -> {
+                try {
+                    XContentBuilder builder = ResultToXContentBuilder.builder(channel).duration(startTime).build();
+                    channel.sendResponse(new BytesRestResponse(RestStatus.OK, builder));
+                } catch (Throwable t) {
+                    errorResponse(channel, t);
+                }
+            };
+        }
+        int fetchSize = requestedFetchSize > 0 ? requestedFetchSize : cursor.fetchSize();
+        boolean includeTypes = request.paramAsBoolean("types", false);
+        return channel -> fetchFromCursor(channel, cursor, fetchSize, startTime, includeTypes);
+    }
+
+    private void fetchFromCursor(RestChannel channel,
+                                 HttpCursors.Cursor cursor,
+                                 int fetchSize,
+                                 long startTime,
+                                 boolean includeTypes) {
+        try {
+            List<Field> outputFields = cursor.outputFields();
+            ResultReceiver resultReceiver = new RestResultSetReceiver(
+                channel,
+                outputFields,
+                startTime,
+                new RowAccounting(
+                    Symbols.extractTypes(outputFields),
+                    new RamAccountingContext("http-result", circuitBreaker)),
+                includeTypes,
+                cursor,
+                httpCursors);
+            cursor.session().execute(cursor.id(), fetchSize, resultReceiver);
+            cursor.session().sync();
+        } catch (Throwable t) {
+            HttpCursors.close(cursor);
+            errorResponse(channel, t);
+        }
+    }
+
     private RestChannelConsumer executeBulkRequest(SQLXContentSourceContext context, final RestRequest request) {
-        SQLOperations.Session session = sqlOperations.createSession(
-            request.header(REQUEST_HEADER_SCHEMA),
-            userFromRequest(request),
-            toOptions(request),
-            DEFAULT_SOFT_LIMIT);
+        int parallelism = request.paramAsInt(PARAM_BULK_PARALLELISM, 1);
+        if (parallelism < 1) {
+            return channel -> sendBadRequest(channel, PARAM_BULK_PARALLELISM + " must be greater than 0");
+        }
+        if (parallelism > 1 && context.bulkArgs().length > PARALLEL_BULK_CHUNK_SIZE) {
+            return executeParallelBulkRequest(context, request, parallelism);
+        }
+        SQLOperations.Session session = createSession(request);
         try {
             final long startTime = System.nanoTime();
             session.parse(UNNAMED, context.stmt(), Collections.emptyList());
@@ -208,14 +353,69 @@ public class RestSQLAction extends BaseRestHandler {
                 throw new UnsupportedOperationException(
                     "Bulk operations for statements that return result sets is not supported");
             }
-            return channel -> {
-                session.sync().whenComplete((Object result, Throwable t) -> {
+            return channel -> session.sync().whenComplete(
+                (Object result, Throwable t) -> bulkResponse(channel, startTime, results, t));
+        } catch (Throwable t) {
+            return channel -> errorResponse(channel, t);
+        }
+    }
+
+    /**
+     * Splits the bulk_args into chunks of {@link #PARALLEL_BULK_CHUNK_SIZE} items.
+     * Each chunk is bound to its own session and executed as a separate bulk operation, with at most
+     * {@code parallelism} chunks being executed concurrently.
+     */
+    private RestChannelConsumer executeParallelBulkRequest(SQLXContentSourceContext context,
+                                                           final RestRequest request,
+                                                           int parallelism) {
+        try {
+            final long startTime = System.nanoTime();
+            Object[][] bulkArgs = context.bulkArgs();
+            final RestBulkRowCountReceiver.Result[] results = new RestBulkRowCountReceiver.Result[bulkArgs.length];
+            List<Supplier<CompletableFuture<?>>> chunks = new ArrayList<>();
+            for (int start = 0; start < bulkArgs.length; start += PARALLEL_BULK_CHUNK_SIZE) {
+                SQLOperations.Session session = createSession(request);
+                session.parse(UNNAMED, context.stmt(), Collections.emptyList());
+                int end = Math.min(start + PARALLEL_BULK_CHUNK_SIZE, bulkArgs.length);
+                for (int i = start; i < end; i++) {
+                    session.bind(UNNAMED, UNNAMED, Arrays.asList(bulkArgs[i]), null);
+                    session.execute(UNNAMED, 0, new RestBulkRowCountReceiver(results, i));
+                }
+                if (start == 0 && session.describe('P', UNNAMED) != null) {
+                    throw new UnsupportedOperationException(
+                        "Bulk operations for statements that return result sets is not supported");
+                }
+                chunks.add(session::sync);
+            }
+            return channel -> CompletableFutures.runWithBoundedConcurrency(chunks.iterator(), parallelism)
+                .whenComplete((Object result, Throwable t) -> bulkResponse(channel, startTime, results, t));
+        } catch (Throwable t) {
+            return channel -> errorResponse(channel, t);
+        }
+    }
+
+    /**
+     * Inserts the newline delimited JSON rows of the request body into the given table.
+     * Rows are parsed and inserted chunk by chunk; the next chunk is only parsed after the bulk operation
+     * of the previous chunk completed.
+     */
+    private RestChannelConsumer executeIngestRequest(String table, final RestRequest request) {
+        final long startTime = System.nanoTime();
+        final String quotedTable = quoteTableName(table);
+        final NDJsonRowChunks chunks = new NDJsonRowChunks(request.content(), INGEST_BULK_SIZE);
+        return channel -> {
+            try {
+                SQLOperations.Session session = createSession(request);
+                CompletableFuture<Long> rowCount = new CompletableFuture<>();
+                ingestNextChunk(session, quotedTable, chunks, 0L, rowCount);
+                rowCount.whenComplete((Long result, Throwable t) -> {
                     if (t == null) {
                         try {
                             XContentBuilder builder = ResultToXContentBuilder.builder(channel)
                                 .cols(Collections.emptyList())
+                                .rowCount(result)
                                 .duration(startTime)
-                                .bulkRows(results).build();
+                                .build();
                             channel.sendResponse(new BytesRestResponse(RestStatus.OK, builder));
                         } catch (Throwable e) {
                             errorResponse(channel, e);
@@ -224,9 +424,82 @@ public class RestSQLAction extends BaseRestHandler {
                         errorResponse(channel, t);
                     }
                 });
-            };
+            } catch (Throwable t) {
+                errorResponse(channel, t);
+            }
+        };
+    }
+
+    private static void ingestNextChunk(SQLOperations.Session session,
+                                        String quotedTable,
+                                        NDJsonRowChunks chunks,
+                                        long rowCount,
+                                        CompletableFuture<Long> result) {
+        try {
+            NDJsonRowChunks.Chunk chunk = chunks.next();
+            if (chunk == null) {
+                result.complete(rowCount);
+                return;
+            }
+            List<Object[]> rows = chunk.rows();
+            session.parse(UNNAMED, insertStatement(quotedTable, chunk.columns()), Collections.emptyList());
+            RestBulkRowCountReceiver.Result[] results = new RestBulkRowCountReceiver.Result[rows.size()];
+            for (int i = 0; i < rows.size(); i++) {
+                session.bind(UNNAMED, UNNAMED, Arrays.asList(rows.get(i)), null);
+                session.execute(UNNAMED, 0, new RestBulkRowCountReceiver(results, i));
+            }
+            session.sync().whenComplete((Object ignored, Throwable t) -> {
+                if (t == null) {
+                    long newRowCount = rowCount;
+                    for (RestBulkRowCountReceiver.Result bulkResult : results) {
+                        if (bulkResult != null && bulkResult.rowCount() > 0) {
+                            newRowCount += bulkResult.rowCount();
+                        }
+                    }
+                    ingestNextChunk(session, quotedTable, chunks, newRowCount, result);
+                } else {
+                    result.completeExceptionally(t);
+                }
+            });
         } catch (Throwable t) {
-            return channel -> errorResponse(channel, t);
+            result.completeExceptionally(t);
+        }
+    }
+
+    private static String quoteTableName(String table) {
+        StringJoiner quoted = new StringJoiner(".");
+        for (String part : table.split("\\.", 2)) {
+            quoted.add(Identifiers.quote(part));
+        }
+        return quoted.toString();
+    }
+
+    private static String insertStatement(String quotedTable, List<String> columns) {
+        StringJoiner quotedColumns = new StringJoiner(", ", "(", ")");
+        StringJoiner placeholders = new StringJoiner(", ", "(", ")");
+        for (String column : columns) {
+            quotedColumns.add(Identifiers.quote(column));
+            placeholders.add("?");
+        }
+        return "INSERT INTO " + quotedTable + " " + quotedColumns + " VALUES " + placeholders;
+    }
+
+    private void bulkResponse(RestChannel channel,
+                              long startTime,
+                              RestBulkRowCountReceiver.Result[] results,
+                              @Nullable Throwable t) {
+        if (t == null) {
+            try {
+                XContentBuilder builder = ResultToXContentBuilder.builder(channel)
+                    .cols(Collections.emptyList())
+                    .duration(startTime)
+                    .bulkRows(results).build();
+                channel.sendResponse(new BytesRestResponse(RestStatus.OK, builder));
+            } catch (Throwable e) {
+                errorResponse(channel, e);
+            }
+        } else {
+            errorResponse(channel, t);
         }
     }
 
@@ -27,8 +27,11 @@ import io.crate.data.Row;
 import io.crate.types.CollectionType;
 import io.crate.types.DataType;
 import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.XContentType;
 import org.elasticsearch.rest.RestChannel;
 
+import javax.annotation.Nullable;
 import java.io.IOException;
 import java.util.List;
 
@@ -43,15 +46,50 @@ class ResultToXContentBuilder {
         static final String ROW_COUNT = "rowcount";
         static final String DURATION = "duration";
         static final String ERROR_MESSAGE = "error_message";
+        static final String CURSOR = "cursor";
     }
 
     private final XContentBuilder builder;
 
+    private static final String ACCEPT_HEADER = "Accept";
+
     private ResultToXContentBuilder(RestChannel channel) throws IOException {
-        builder = channel.newBuilder();
+        builder = newBuilder(channel);
         builder.startObject();
     }
 
+    /**
+     * Creates a builder using a binary content type (SMILE or CBOR) if the client requested one using the
+     * Accept header. Otherwise the content type negotiation of the channel is used, which defaults to JSON.
+     */
+    private static XContentBuilder newBuilder(RestChannel channel) throws IOException {
+        XContentType contentType = binaryContentType(channel.request().header(ACCEPT_HEADER));
+        if (contentType == null) {
+            return channel.newBuilder();
+        }
+        return XContentFactory.contentBuilder(contentType);
+    }
+
+    /**
+     * Returns the binary content type of the first media range within the Accept header which denotes a
+     * known XContent type, or null if there is none or if it isn't a binary one.
+     */
+    @Nullable
+    static XContentType binaryContentType(@Nullable String accept) {
+        if (accept == null) {
+            return null;
+        }
+        for (String mediaRange : accept.split(",")) {
+            int paramsIdx = mediaRange.indexOf(';');
+            String mediaType = (paramsIdx < 0 ? mediaRange : mediaRange.substring(0, paramsIdx)).trim();
+            XContentType contentType = XContentType.fromMediaTypeOrFormat(mediaType);
+            if (contentType != null) {
+                return contentType == XContentType.SMILE || contentType == XContentType.CBOR ? contentType : null;
+            }
+        }
+        return null;
+    }
+
     static ResultToXContentBuilder builder(RestChannel channel) throws IOException {
         return new ResultToXContentBuilder(channel);
     }
@@ -130,6 +168,11 @@ class ResultToXContentBuilder {
         return this;
     }
 
+    ResultToXContentBuilder cursor(String cursorId) throws IOException {
+        builder.field(FIELDS.CURSOR, cursorId);
+        return this;
+    }
+
     ResultToXContentBuilder bulkRows(RestBulkRowCountReceiver.Result[] results) throws IOException {
         builder.startArray(FIELDS.RESULTS);
         for (RestBulkRowCountReceiver.Result result : results) {
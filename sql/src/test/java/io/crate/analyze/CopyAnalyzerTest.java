@@ -265,6 +265,13 @@ public class CopyAnalyzerTest extends CrateDummyClusterServiceUnitTest {
         e.analyze("copy users from '/blah.txt' with (compression = gzip)");
     }
 
+    @Test
+    public void testCopyFromWithUnsupportedInputFormat() throws Exception {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("'xml' is not an allowed value. Allowed values are: json, csv");
+        e.analyze("copy users from '/blah.txt' with (format = 'xml')");
+    }
+
     @Test
     public void testCopyFromFileUriArray() throws Exception {
         Object[] files = $("/f1.json", "/f2.json");
@@ -120,6 +120,13 @@ public class InsertFromValuesAnalyzerTest extends CrateDummyClusterServiceUnitTe
             .addPrimaryKey("id2");
         executorBuilder.addDocTable(generatedPkColumnTable);
 
+        TableIdent generatedRandomColumnTableIdent = new TableIdent(null, "generated_random_column");
+        TestingTableInfo.Builder generatedRandomColumnTable = new TestingTableInfo.Builder(
+            generatedRandomColumnTableIdent, SHARD_ROUTING)
+            .add("id", DataTypes.INTEGER, null)
+            .addGeneratedColumn("r", DataTypes.DOUBLE, "id * random()", false);
+        executorBuilder.addDocTable(generatedRandomColumnTable);
+
         TableIdent generatedClusteredByTableIdent = new TableIdent(null, "generated_clustered_by_column");
         TestingTableInfo.Builder clusteredByGeneratedTable = new TestingTableInfo.Builder(
             generatedClusteredByTableIdent, SHARD_ROUTING)
@@ -1091,6 +1098,28 @@ public class InsertFromValuesAnalyzerTest extends CrateDummyClusterServiceUnitTe
             is(generateId(Arrays.asList(new ColumnIdent("id"), new ColumnIdent("id2")), Arrays.asList(new BytesRef("2"), new BytesRef("2")), new ColumnIdent("id"))));
     }
 
+    @Test
+    public void testInsertMultipleValuesGeneratedPrimaryKeyColumn() throws Exception {
+        InsertFromValuesAnalyzedStatement analysis = e.analyze(
+            "INSERT INTO generated_pk_column (serial_no, product_no) values (1, 1), (2, 4), (1, 1)"
+        );
+        assertThat(analysis.sourceMaps(), hasSize(3));
+        List<ColumnIdent> pkColumns = Arrays.asList(new ColumnIdent("id"), new ColumnIdent("id2"));
+        String firstId = generateId(pkColumns, Arrays.asList(new BytesRef("2"), new BytesRef("2")), new ColumnIdent("id"));
+        String secondId = generateId(pkColumns, Arrays.asList(new BytesRef("3"), new BytesRef("5")), new ColumnIdent("id"));
+        assertThat(analysis.ids(), contains(firstId, secondId, firstId));
+    }
+
+    @Test
+    public void testGeneratedColumnWithNonDeterministicFunctionIsNotEvaluated() throws Exception {
+        InsertFromValuesAnalyzedStatement analysis = e.analyze(
+            "INSERT INTO generated_random_column (id) values (1), (2)");
+        assertThat(analysis.columns(), contains(isReference("id")));
+        assertThat(analysis.sourceMaps(), contains(
+            Matchers.arrayContaining(1),
+            Matchers.arrayContaining(2)));
+    }
+
     @Test
     public void testInsertMultipleValuesTooManyValues() throws Exception {
         expectedException.expect(IllegalArgumentException.class);
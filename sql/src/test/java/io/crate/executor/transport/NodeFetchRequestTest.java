@@ -59,4 +59,21 @@ public class NodeFetchRequestTest {
         assertThat(orig.isCloseContext(), is(streamed.isCloseContext()));
         assertThat(orig.toFetch().toString(), is(streamed.toFetch().toString()));
     }
+
+    @Test
+    public void testStreamingOfCompressionThreshold() throws Exception {
+        IntObjectHashMap<IntContainer> toFetch = new IntObjectHashMap<>();
+        toFetch.put(1, new IntHashSet(3));
+
+        for (long threshold : new long[]{NodeFetchRequest.NO_COMPRESSION, 0L, 65536L}) {
+            NodeFetchRequest orig = new NodeFetchRequest(UUID.randomUUID(), 1, false, toFetch, threshold);
+            BytesStreamOutput out = new BytesStreamOutput();
+            orig.writeTo(out);
+
+            NodeFetchRequest streamed = new NodeFetchRequest();
+            streamed.readFrom(out.bytes().streamInput());
+
+            assertThat(streamed.compressionThreshold(), is(threshold));
+        }
+    }
 }
@@ -86,4 +86,50 @@ public class ShardUpsertRequestTest extends CrateUnitTest {
         assertThat(request, equalTo(request2));
     }
 
+    @Test
+    public void testStreamingOfInsertValuesOfMultipleItems() throws Exception {
+        ShardId shardId = new ShardId("test", UUIDs.randomBase64UUID(), 1);
+        ShardUpsertRequest request = new ShardUpsertRequest.Builder(
+            false,
+            false,
+            null,
+            new Reference[]{ID_REF, NAME_REF},
+            UUID.randomUUID(),
+            false
+        ).newRequest(shardId, null);
+
+        request.add(0, new ShardUpsertRequest.Item("1", null, new Object[]{1, new BytesRef("Arthur")}, null));
+        request.add(1, new ShardUpsertRequest.Item("2", null, new Object[]{2, null}, null));
+        request.add(2, new ShardUpsertRequest.Item("3", null, null, null));
+        request.add(3, new ShardUpsertRequest.Item("4", null, new Object[]{4, new BytesRef("Trillian")}, null));
+
+        BytesStreamOutput out = new BytesStreamOutput();
+        request.writeTo(out);
+
+        StreamInput in = out.bytes().streamInput();
+        ShardUpsertRequest request2 = new ShardUpsertRequest();
+        request2.readFrom(in);
+
+        assertThat(request, equalTo(request2));
+        assertThat(request2.items().get(3).insertValues(), equalTo(new Object[]{4, new BytesRef("Trillian")}));
+    }
+
+    @Test
+    public void testStreamingFailsIfNumberOfInsertValuesDoesNotMatchInsertColumns() throws Exception {
+        ShardId shardId = new ShardId("test", UUIDs.randomBase64UUID(), 1);
+        ShardUpsertRequest request = new ShardUpsertRequest.Builder(
+            false,
+            false,
+            null,
+            new Reference[]{ID_REF, NAME_REF},
+            UUID.randomUUID(),
+            false
+        ).newRequest(shardId, null);
+        request.add(0, new ShardUpsertRequest.Item("1", null, new Object[]{1}, null));
+
+        expectedException.expect(IllegalStateException.class);
+        expectedException.expectMessage(
+            "Number of insert values (1) of item 1 doesn't match the number of insert columns (2)");
+        request.writeTo(new BytesStreamOutput());
+    }
 }
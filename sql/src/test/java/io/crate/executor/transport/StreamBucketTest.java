@@ -0,0 +1,158 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.executor.transport;
+
+import io.crate.Streamer;
+import io.crate.data.Row;
+import io.crate.data.RowN;
+import io.crate.test.integration.CrateUnitTest;
+import io.crate.types.DataTypes;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+public class StreamBucketTest extends CrateUnitTest {
+
+    private static final Streamer<?>[] STREAMERS = new Streamer[]{DataTypes.STRING.streamer(), DataTypes.INTEGER.streamer()};
+
+    private static StreamBucket streamed(StreamBucket.Builder builder) throws Exception {
+        BytesStreamOutput out = new BytesStreamOutput();
+        builder.writeToStream(out);
+        StreamBucket bucket = new StreamBucket(STREAMERS);
+        bucket.readFrom(out.bytes().streamInput());
+        return bucket;
+    }
+
+    private static List<List<Object>> materialize(StreamBucket bucket) {
+        List<List<Object>> rows = new ArrayList<>();
+        for (Row row : bucket) {
+            rows.add(Arrays.asList(row.materialize()));
+        }
+        return rows;
+    }
+
+    @Test
+    public void testRepeatedStringsAreDictionaryEncoded() throws Exception {
+        StreamBucket.Builder builder = new StreamBucket.Builder(STREAMERS, null);
+        List<List<Object>> expected = new ArrayList<>();
+        BytesRef reused = new BytesRef();
+        for (int i = 0; i < 100; i++) {
+            // row values may be re-used by the producer
+            reused.copyChars(i % 2 == 0 ? "Arthur Dent" : "Ford Prefect");
+            Object[] row = new Object[]{i % 10 == 0 ? null : reused, i};
+            builder.add(new RowN(row));
+            expected.add(Arrays.asList(row[0] == null ? null : BytesRef.deepCopyOf(reused), i));
+        }
+        BytesStreamOutput out = new BytesStreamOutput();
+        builder.writeToStream(out);
+        // each string is only written once, all other occurrences are written as a 1 byte reference
+        assertThat(out.size(), lessThan(100 * 12));
+
+        assertThat(materialize(streamed(builder)), is(expected));
+    }
+
+    @Test
+    public void testDistinctStringsExceedingTheDictionarySize() throws Exception {
+        StreamBucket.Builder builder = new StreamBucket.Builder(STREAMERS, null);
+        List<List<Object>> expected = new ArrayList<>();
+        int numRows = StreamBucket.MAX_DICTIONARY_SIZE * 2;
+        for (int i = 0; i < numRows; i++) {
+            BytesRef value = new BytesRef(Integer.toString(i % (StreamBucket.MAX_DICTIONARY_SIZE + 10)));
+            builder.add(new RowN(new Object[]{value, i}));
+            expected.add(Arrays.asList(value, i));
+        }
+        assertThat(materialize(streamed(builder)), is(expected));
+    }
+
+    @Test
+    public void testLongValuesAreNotDictionaryEncoded() throws Exception {
+        StreamBucket.Builder builder = new StreamBucket.Builder(STREAMERS, null);
+        List<List<Object>> expected = new ArrayList<>();
+        char[] chars = new char[StreamBucket.MAX_DICTIONARY_VALUE_LENGTH + 1];
+        Arrays.fill(chars, 'a');
+        BytesRef value = new BytesRef(new String(chars));
+        for (int i = 0; i < 10; i++) {
+            builder.add(new RowN(new Object[]{value, i}));
+            expected.add(Arrays.asList(value, i));
+        }
+        BytesStreamOutput out = new BytesStreamOutput();
+        builder.writeToStream(out);
+        assertThat(out.size(), greaterThan(10 * value.length));
+
+        assertThat(materialize(streamed(builder)), is(expected));
+    }
+
+    @Test
+    public void testDictionaryIsLimitedInBytes() throws Exception {
+        StreamBucket.Builder builder = new StreamBucket.Builder(STREAMERS, null);
+        List<List<Object>> expected = new ArrayList<>();
+        int valueLength = StreamBucket.MAX_DICTIONARY_VALUE_LENGTH - 10;
+        int numValues = StreamBucket.MAX_DICTIONARY_BYTES / valueLength * 2;
+        for (int i = 0; i < numValues; i++) {
+            char[] chars = new char[valueLength];
+            Arrays.fill(chars, (char) ('a' + i % 26));
+            String prefix = Integer.toString(i);
+            prefix.getChars(0, prefix.length(), chars, 0);
+            BytesRef value = new BytesRef(new String(chars));
+            // every value is repeated once, so the dictionary isn't dropped because of its hit rate
+            for (int j = 0; j < 2; j++) {
+                builder.add(new RowN(new Object[]{value, i}));
+                expected.add(Arrays.asList(value, i));
+            }
+        }
+        assertThat(materialize(streamed(builder)), is(expected));
+    }
+
+    @Test
+    public void testDictionaryIsDroppedIfValuesAreRarelyRepeated() throws Exception {
+        StreamBucket.Builder builder = new StreamBucket.Builder(STREAMERS, null);
+        List<List<Object>> expected = new ArrayList<>();
+        for (int i = 0; i < StreamBucket.HIT_RATE_CHECK_INTERVAL; i++) {
+            BytesRef value = new BytesRef(Integer.toString(i));
+            builder.add(new RowN(new Object[]{value, i}));
+            expected.add(Arrays.asList(value, i));
+        }
+        BytesStreamOutput distinctOut = new BytesStreamOutput();
+        builder.writeToStream(distinctOut);
+
+        BytesRef repeated = new BytesRef("Arthur Dent");
+        for (int i = 0; i < 100; i++) {
+            builder.add(new RowN(new Object[]{repeated, i}));
+            expected.add(Arrays.asList(repeated, i));
+        }
+        BytesStreamOutput out = new BytesStreamOutput();
+        builder.writeToStream(out);
+        // the dictionary has been dropped, so the repeated value is written as a literal every time
+        assertThat(out.size() - distinctOut.size(), greaterThan(100 * repeated.length));
+
+        assertThat(materialize(streamed(builder)), is(expected));
+    }
+}
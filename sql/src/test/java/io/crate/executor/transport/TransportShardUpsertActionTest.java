@@ -41,7 +41,9 @@ import org.elasticsearch.cluster.metadata.IndexMetaData;
 import org.elasticsearch.cluster.metadata.IndexNameExpressionResolver;
 import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.UUIDs;
+import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.collect.MapBuilder;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.xcontent.XContentFactory;
 import org.elasticsearch.index.Index;
@@ -61,12 +63,14 @@ import org.elasticsearch.transport.TransportService;
 import org.junit.Before;
 import org.junit.Test;
 
+import javax.annotation.Nullable;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import static io.crate.testing.TestingHelpers.getFunctions;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
 import static org.mockito.Mockito.*;
 
 public class TransportShardUpsertActionTest extends CrateDummyClusterServiceUnitTest {
@@ -108,6 +112,7 @@ public class TransportShardUpsertActionTest extends CrateDummyClusterServiceUnit
                                               IndexShard indexShard,
                                               boolean tryInsertFirst,
                                               Collection<ColumnIdent> notUsedNonGeneratedColumns,
+                                              @Nullable RawSourceGeneratedColumns rawSourceGeneratedColumns,
                                               int retryCount) throws ElasticsearchException {
             throw new VersionConflictEngineException(
                 indexShard.shardId(),
@@ -192,6 +197,32 @@ public class TransportShardUpsertActionTest extends CrateDummyClusterServiceUnit
         assertThat(result.getResponse().failure(), instanceOf(VersionConflictEngineException.class));
     }
 
+    @Test
+    public void testInsertValuesAreNotReplicated() throws Exception {
+        ShardId shardId = new ShardId(TABLE_IDENT.indexName(), charactersIndexUUID, 0);
+        ShardUpsertRequest request = new ShardUpsertRequest.Builder(
+            false,
+            true,
+            null,
+            new Reference[]{ID_REF},
+            UUID.randomUUID(),
+            false
+        ).newRequest(shardId, null);
+        request.add(1, new ShardUpsertRequest.Item("1", null, new Object[]{1}, null));
+
+        transportShardUpsertAction.processRequestItems(indexShard, request, new AtomicBoolean(false));
+
+        // the primary request is left intact, it may be re-sent to a primary
+        assertThat(request.items().get(0).insertValues(), is(new Object[]{1}));
+
+        BytesStreamOutput out = new BytesStreamOutput();
+        request.writeTo(out);
+        ShardUpsertRequest replicaRequest = new ShardUpsertRequest();
+        replicaRequest.readFrom(out.bytes().streamInput());
+        assertThat(replicaRequest.items().get(0).id(), is("1"));
+        assertThat(replicaRequest.items().get(0).insertValues(), nullValue());
+    }
+
     @Test
     public void testExceptionWhileProcessingItemsContinueOnError() throws Exception {
         ShardId shardId = new ShardId(TABLE_IDENT.indexName(), charactersIndexUUID, 0);
@@ -365,6 +396,50 @@ public class TransportShardUpsertActionTest extends CrateDummyClusterServiceUnit
         validateMapOrder(sourceMap, Arrays.asList("ts", "user.name"));
     }
 
+    /**
+     * The source must be the same as the one built by parsing the raw source into a map
+     */
+    private void assertRawSourceWithGeneratedColumns(String rawSource) throws Exception {
+        TransportShardUpsertAction.RawSourceGeneratedColumns generatedColumns =
+            new TransportShardUpsertAction.RawSourceGeneratedColumns(getFunctions(), generatedColumnTableInfo, true);
+        BytesReference source = generatedColumns.generateSource(new BytesRef(rawSource));
+
+        Reference rawRef = new Reference(
+            new ReferenceIdent(TABLE_IDENT, DocSysColumns.RAW), RowGranularity.DOC, DataTypes.STRING);
+        Map<String, Object> sourceMap = transportShardUpsertAction.buildMapFromSource(
+            new Reference[]{rawRef}, new Object[]{new BytesRef(rawSource)}, true);
+        transportShardUpsertAction.processGeneratedColumns(generatedColumnTableInfo, sourceMap, sourceMap, true);
+
+        assertThat(source.utf8ToString(), is(XContentFactory.jsonBuilder().map(sourceMap).bytes().utf8ToString()));
+    }
+
+    @Test
+    public void testGeneratedColumnsAreAddedToRawSource() throws Exception {
+        assertRawSourceWithGeneratedColumns(
+            "{\"ts\":1448274317000,\"other\":{\"x\":[1,2]},\"user\":{\"name\":\"zoo\",\"age\":35}}");
+    }
+
+    @Test
+    public void testGeneratedColumnsOfRawSourceWithoutReferencedColumns() throws Exception {
+        assertRawSourceWithGeneratedColumns("{\"other\":1,\"user\":null}");
+    }
+
+    @Test
+    public void testGeneratedColumnsOfRawSourceWithPathKey() throws Exception {
+        assertRawSourceWithGeneratedColumns("{\"user.name\":\"zoo\"}");
+    }
+
+    @Test
+    public void testGeneratedColumnsOfRawSourceWithInvalidValue() throws Exception {
+        TransportShardUpsertAction.RawSourceGeneratedColumns generatedColumns =
+            new TransportShardUpsertAction.RawSourceGeneratedColumns(getFunctions(), generatedColumnTableInfo, true);
+
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage(
+            "Given value 1448274317000 for generated column does not match defined generated expression value 1448236800000");
+        generatedColumns.generateSource(new BytesRef("{\"ts\":1448274317000,\"day\":1448274317000}"));
+    }
+
     private void validateMapOrder(Map<String, Object> map, List<String> keys) {
         assertThat(map, instanceOf(LinkedHashMap.class));
 
@@ -412,6 +487,22 @@ public class TransportShardUpsertActionTest extends CrateDummyClusterServiceUnit
         TransportShardUpsertAction.updateSourceByPaths(source, changes);
     }
 
+    @Test
+    public void testUpdateSourceByPathsDoesNotChangeObjectsReferencedByOtherValues() throws Exception {
+        Map<String, Object> o = new HashMap<>();
+        o.put("x", 1);
+        Map<String, Object> source = new HashMap<>();
+        source.put("o", o);
+
+        Map<String, Object> changes = new LinkedHashMap<>();
+        changes.put("copy", o);
+        changes.put("o.x", 2);
+        TransportShardUpsertAction.updateSourceByPaths(source, changes);
+
+        assertThat(((Map) source.get("o")).get("x"), is(2));
+        assertThat(((Map) source.get("copy")).get("x"), is(1));
+    }
+
     @Test
     public void testUpdateSourceByPathsUpdateNullObjectNested() throws Exception {
         Map<String, Object> source = new HashMap<>();
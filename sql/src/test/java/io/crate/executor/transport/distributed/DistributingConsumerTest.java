@@ -38,6 +38,8 @@ import org.elasticsearch.common.logging.Loggers;
 import org.junit.Test;
 import org.mockito.invocation.InvocationOnMock;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
@@ -49,6 +51,7 @@ import java.util.concurrent.TimeUnit;
 import static org.hamcrest.Matchers.is;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.*;
 
 public class DistributingConsumerTest extends CrateUnitTest {
@@ -117,6 +120,49 @@ public class DistributingConsumerTest extends CrateUnitTest {
         collectingConsumer.getResult();
     }
 
+    @Test
+    public void testSlowDownstreamDoesNotStallFastDownstreamUntilItsBufferIsFull() throws Exception {
+        Streamer<?>[] streamers = { DataTypes.INTEGER.streamer() };
+        List<ActionListener<DistributedResultResponse>> pendingListenersOfSlowNode = new ArrayList<>();
+        TransportDistributedResultAction distributedResultAction = mock(TransportDistributedResultAction.class);
+        doAnswer((InvocationOnMock invocationOnMock) -> {
+            Object[] args = invocationOnMock.getArguments();
+            ActionListener<DistributedResultResponse> listener = (ActionListener<DistributedResultResponse>) args[2];
+            if (args[0].equals("n2")) {
+                pendingListenersOfSlowNode.add(listener);
+            } else {
+                listener.onResponse(new DistributedResultResponse(true));
+            }
+            return null;
+        }).when(distributedResultAction).pushResult(anyString(), any(), any());
+
+        DistributingConsumer distributingConsumer = new DistributingConsumer(
+            logger,
+            MoreExecutors.directExecutor(),
+            UUID.randomUUID(),
+            new BroadcastingBucketBuilder(streamers, 2),
+            1,
+            (byte) 0,
+            0,
+            Arrays.asList("n1", "n2"),
+            distributedResultAction,
+            streamers,
+            2 // pageSize
+        );
+        distributingConsumer.accept(TestingBatchIterators.range(0, 10), null);
+
+        // consumption is paused once the slow downstream has MAX_BUFFERED_PAGES pages in flight or queued
+        verify(distributedResultAction, times(DistributingConsumer.MAX_BUFFERED_PAGES)).pushResult(eq("n1"), any(), any());
+        verify(distributedResultAction, times(1)).pushResult(eq("n2"), any(), any());
+
+        while (pendingListenersOfSlowNode.isEmpty() == false) {
+            pendingListenersOfSlowNode.remove(0).onResponse(new DistributedResultResponse(true));
+        }
+        // 5 full pages + the empty last page
+        verify(distributedResultAction, times(6)).pushResult(eq("n1"), any(), any());
+        verify(distributedResultAction, times(6)).pushResult(eq("n2"), any(), any());
+    }
+
     private DistributingConsumer createDistributingConsumer(Streamer<?>[] streamers, TransportDistributedResultAction distributedResultAction) {
         return new DistributingConsumer(
             logger,
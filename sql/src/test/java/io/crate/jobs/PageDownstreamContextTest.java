@@ -37,12 +37,16 @@ import io.crate.testing.TestingHelpers;
 import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.breaker.NoopCircuitBreaker;
 import org.elasticsearch.common.logging.Loggers;
+import org.junit.After;
+import org.junit.Before;
 import org.junit.Test;
 
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -55,6 +59,19 @@ public class PageDownstreamContextTest extends CrateUnitTest {
     private static final RamAccountingContext RAM_ACCOUNTING_CONTEXT =
         new RamAccountingContext("dummy", new NoopCircuitBreaker(CircuitBreaker.FIELDDATA));
 
+    private ExecutorService executor;
+
+    @Before
+    public void setUpExecutor() throws Exception {
+        executor = Executors.newSingleThreadExecutor();
+    }
+
+    @After
+    public void tearDownExecutor() throws Exception {
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
     private PageDownstreamContext getPageDownstreamContext(TestingBatchConsumer batchConsumer,
                                                            PagingIterator<Integer, Row> pagingIterator,
                                                            int numBuckets) {
@@ -148,6 +165,151 @@ public class PageDownstreamContextTest extends CrateUnitTest {
                "4\n"));
     }
 
+    @Test
+    public void testNextPageIsPrefetchedBeforeCurrentPageIsConsumed() throws Throwable {
+        TestingBatchConsumer batchConsumer = new TestingBatchConsumer();
+        PageDownstreamContext ctx = new PageDownstreamContext(
+            Loggers.getLogger(PageDownstreamContext.class),
+            "n1",
+            1,
+            "dummy",
+            batchConsumer,
+            new SortedPagingIterator<>(Comparator.comparingInt(r -> (int) r.get(0)), false),
+            new Streamer[1],
+            RAM_ACCOUNTING_CONTEXT,
+            2,
+            executor
+        );
+
+        PageResultListener firstPageListener = mock(PageResultListener.class);
+        ctx.setBucket(0, new ArrayBucket(new Object[][]{
+            new Object[]{1},
+            new Object[]{3},
+        }), false, firstPageListener);
+        verify(firstPageListener, times(1)).needMore(true);
+
+        // the second page of the first upstream arrives before a page of the second upstream
+        PageResultListener secondPageListener = mock(PageResultListener.class);
+        ctx.setBucket(0, new ArrayBucket(new Object[][]{
+            new Object[]{5},
+        }), true, secondPageListener);
+        ctx.setBucket(1, new ArrayBucket(new Object[][]{
+            new Object[]{2},
+            new Object[]{4},
+        }), true, mock(PageResultListener.class));
+
+        List<Object[]> result = batchConsumer.getResult();
+        assertThat(TestingHelpers.printedTable(new CollectionBucket(result)),
+            is("1\n" +
+               "2\n" +
+               "3\n" +
+               "4\n" +
+               "5\n"));
+        verify(secondPageListener, never()).needMore(true);
+    }
+
+    @Test
+    public void testManyPrefetchedPagesAreConsumedWithoutNestingTheLoads() throws Throwable {
+        int numPages = 10_000;
+        TestingBatchConsumer batchConsumer = new TestingBatchConsumer();
+        PageDownstreamContext ctx = new PageDownstreamContext(
+            Loggers.getLogger(PageDownstreamContext.class),
+            "n1",
+            1,
+            "dummy",
+            batchConsumer,
+            PassThroughPagingIterator.oneShot(),
+            new Streamer[1],
+            RAM_ACCOUNTING_CONTEXT,
+            1,
+            executor
+        );
+
+        // every page arrives as soon as it is requested, so it is always prefetched before the consumer needs it
+        PageResultListener listener = new PageResultListener() {
+
+            private int page = 1;
+
+            @Override
+            public void needMore(boolean needMore) {
+                if (needMore) {
+                    int currentPage = page++;
+                    ctx.setBucket(0, new ArrayBucket(new Object[][]{new Object[]{currentPage}}),
+                        currentPage == numPages - 1, this);
+                }
+            }
+        };
+        ctx.setBucket(0, new ArrayBucket(new Object[][]{new Object[]{0}}), false, listener);
+
+        List<Object[]> result = batchConsumer.getResult();
+        assertThat(result.size(), is(numPages));
+        assertThat(result.get(numPages - 1)[0], is((Object) (numPages - 1)));
+    }
+
+    @Test
+    public void testContextIsKeptOpenUntilOutstandingPrefetchRequestIsAnswered() throws Throwable {
+        TestingBatchConsumer batchConsumer = new TestingBatchConsumer();
+        PageDownstreamContext ctx = new PageDownstreamContext(
+            Loggers.getLogger(PageDownstreamContext.class),
+            "n1",
+            1,
+            "dummy",
+            batchConsumer,
+            PassThroughPagingIterator.oneShot(),
+            new Streamer[1],
+            RAM_ACCOUNTING_CONTEXT,
+            2,
+            executor
+        );
+
+        PageResultListener firstPageListener = mock(PageResultListener.class);
+        ctx.setBucket(0, new ArrayBucket(new Object[][]{new Object[]{1}}), false, firstPageListener);
+        verify(firstPageListener, times(1)).needMore(true);
+
+        // the consumer fails while the next page of the first upstream is still on its way
+        ctx.failure(1, new Exception("dummy"));
+        assertThat(ctx.completionFuture().isDone(), is(false));
+
+        PageResultListener latePageListener = mock(PageResultListener.class);
+        ctx.setBucket(0, new ArrayBucket(new Object[][]{new Object[]{2}}), true, latePageListener);
+        verify(latePageListener, times(1)).needMore(false);
+        assertThat(ctx.completionFuture().isCompletedExceptionally(), is(true));
+
+        expectedException.expect(Exception.class);
+        expectedException.expectMessage("dummy");
+        batchConsumer.getResult();
+    }
+
+    @Test
+    public void testFailureAnsweringPrefetchRequestFailsConsumerRightAway() throws Exception {
+        CompletableFuture<Throwable> consumerFailure = new CompletableFuture<>();
+        PageDownstreamContext ctx = new PageDownstreamContext(
+            Loggers.getLogger(PageDownstreamContext.class),
+            "n1",
+            1,
+            "dummy",
+            (iterator, t) -> consumerFailure.complete(t),
+            PassThroughPagingIterator.oneShot(),
+            new Streamer[1],
+            RAM_ACCOUNTING_CONTEXT,
+            2,
+            executor
+        );
+
+        PageResultListener firstPageListener = mock(PageResultListener.class);
+        ctx.setBucket(0, new ArrayBucket(new Object[][]{new Object[]{1}}), false, firstPageListener);
+        verify(firstPageListener, times(1)).needMore(true);
+
+        Throwable failure = new Exception("dummy");
+        ctx.failure(0, failure);
+        PageResultListener otherListener = mock(PageResultListener.class);
+        ctx.setBucket(1, new ArrayBucket(new Object[][]{new Object[]{2}}), true, otherListener);
+
+        assertThat(consumerFailure.get(1, TimeUnit.SECONDS), is(failure));
+        verify(otherListener, times(1)).needMore(false);
+        assertThat(ctx.completionFuture().isCompletedExceptionally(), is(true));
+    }
+
     @Test
     public void testListenersCalledWhenOtherUpstreamIsFailing() throws Exception {
         TestingBatchConsumer consumer = new TestingBatchConsumer();
@@ -24,12 +24,15 @@ package io.crate.metadata;
 
 import com.google.common.collect.ImmutableList;
 import io.crate.analyze.symbol.Symbol;
+import io.crate.data.Input;
 import io.crate.test.integration.CrateUnitTest;
 import io.crate.types.DataTypes;
 import org.elasticsearch.common.collect.MapBuilder;
 import org.junit.Test;
 
 import static io.crate.testing.SymbolMatchers.isLiteral;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
 
 
 public class ReferenceToLiteralConverterTest extends CrateUnitTest {
@@ -89,4 +92,24 @@ public class ReferenceToLiteralConverterTest extends CrateUnitTest {
         Symbol replacedSymbol = convertFunction.apply(nameRef);
         assertThat(replacedSymbol, isLiteral("Ford", DataTypes.STRING));
     }
+
+    @Test
+    public void testValueInputReadsTheCurrentValues() throws Exception {
+        Reference idRef = new Reference(
+            new ReferenceIdent(TABLE_IDENT, new ColumnIdent("id")), RowGranularity.DOC, DataTypes.INTEGER);
+        Reference nameRef = new Reference(
+            new ReferenceIdent(TABLE_IDENT, new ColumnIdent("name")), RowGranularity.DOC, DataTypes.STRING);
+
+        ReferenceToLiteralConverter convertFunction = new ReferenceToLiteralConverter(
+            ImmutableList.of(idRef), ImmutableList.of(idRef, nameRef));
+        Input<?> idInput = convertFunction.valueInput(idRef);
+        Input<?> nameInput = convertFunction.valueInput(nameRef);
+
+        convertFunction.values(new Object[]{1});
+        assertThat((Object) idInput.value(), is(1));
+        assertThat((Object) nameInput.value(), nullValue());
+
+        convertFunction.values(new Object[]{2L});
+        assertThat((Object) idInput.value(), is(2));
+    }
 }
@@ -23,9 +23,18 @@
 package io.crate.operation;
 
 import io.crate.test.integration.CrateUnitTest;
+import org.elasticsearch.Version;
+import org.elasticsearch.cluster.ClusterChangedEvent;
+import org.elasticsearch.cluster.ClusterName;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.cluster.node.DiscoveryNodes;
+import org.elasticsearch.common.transport.LocalTransportAddress;
 import org.junit.Before;
 import org.junit.Test;
 
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
 import static org.hamcrest.core.Is.is;
 
 public class NodeJobsCounterTest extends CrateUnitTest {
@@ -74,4 +83,46 @@ public class NodeJobsCounterTest extends CrateUnitTest {
             fail("Did not expect unregistering a job for a null node to fail but got: " + e.getMessage());
         }
     }
+
+    @Test
+    public void testConcurrencyLimitGrowsWhileLatencyIsStable() {
+        assertThat(nodeJobsCounter.getConcurrencyLimitForNode("node1"), is(NodeJobsCounter.MAX_NODE_CONCURRENT_OPERATIONS));
+        for (int i = 0; i < 100; i++) {
+            nodeJobsCounter.onResponse("node1", 1000L);
+        }
+        assertThat(nodeJobsCounter.getConcurrencyLimitForNode("node1"), greaterThan(NodeJobsCounter.MAX_NODE_CONCURRENT_OPERATIONS));
+        assertThat(nodeJobsCounter.getConcurrencyLimitForNode("node2"), is(NodeJobsCounter.MAX_NODE_CONCURRENT_OPERATIONS));
+    }
+
+    @Test
+    public void testConcurrencyLimitShrinksOnSlowdownAndRejection() {
+        nodeJobsCounter.onResponse("node1", 1000L);
+        nodeJobsCounter.onResponse("node1", 10_000L);
+        assertThat(nodeJobsCounter.getConcurrencyLimitForNode("node1"), lessThan(NodeJobsCounter.MAX_NODE_CONCURRENT_OPERATIONS));
+
+        for (int i = 0; i < 10; i++) {
+            nodeJobsCounter.onRejection("node1");
+        }
+        assertThat(nodeJobsCounter.getConcurrencyLimitForNode("node1"), is((long) NodeJobsCounter.MIN_CONCURRENCY_LIMIT));
+    }
+
+    @Test
+    public void testConcurrencyLimitOfRemovedNodeIsDropped() {
+        for (int i = 0; i < 10; i++) {
+            nodeJobsCounter.onRejection("node1");
+            nodeJobsCounter.onRejection("node2");
+        }
+        DiscoveryNode node1 = new DiscoveryNode("node1", LocalTransportAddress.buildUnique(), Version.CURRENT);
+        DiscoveryNode node2 = new DiscoveryNode("node2", LocalTransportAddress.buildUnique(), Version.CURRENT);
+        ClusterState previousState = ClusterState.builder(ClusterName.DEFAULT)
+            .nodes(DiscoveryNodes.builder().add(node1).add(node2))
+            .build();
+        ClusterState newState = ClusterState.builder(previousState)
+            .nodes(DiscoveryNodes.builder().add(node2))
+            .build();
+        nodeJobsCounter.clusterChanged(new ClusterChangedEvent("node1 left", newState, previousState));
+
+        assertThat(nodeJobsCounter.getConcurrencyLimitForNode("node1"), is(NodeJobsCounter.MAX_NODE_CONCURRENT_OPERATIONS));
+        assertThat(nodeJobsCounter.getConcurrencyLimitForNode("node2"), is((long) NodeJobsCounter.MIN_CONCURRENCY_LIMIT));
+    }
 }
@@ -138,6 +138,26 @@ public class LuceneOrderedDocCollectorTest extends RandomizedTest {
         return results;
     }
 
+    private Long[] cutoffQuery(IndexReader reader, Long cutoffValue, boolean reverseFlag, @Nullable Boolean nullFirst) throws IOException {
+        OrderBy orderBy = new OrderBy(ImmutableList.<Symbol>of(REFERENCE),
+            new boolean[]{reverseFlag},
+            new Boolean[]{nullFirst});
+
+        SortField sortField = new SortedNumericSortField("value", SortField.Type.LONG, reverseFlag);
+        Long missingValue = (Long) LuceneMissingValue.missingValue(orderBy, 0);
+        sortField.setMissingValue(missingValue);
+
+        Query cutoffQuery = LuceneOrderedDocCollector.cutoffQuery(
+            cutoffValue, orderBy, missingValue, name -> valueFieldType, mock(QueryShardContext.class));
+        TopFieldDocs result = new IndexSearcher(reader).search(cutoffQuery, 10, new Sort(sortField));
+        Long results[] = new Long[result.scoreDocs.length];
+        for (int i = 0; i < result.scoreDocs.length; i++) {
+            Long value = (Long) ((FieldDoc) result.scoreDocs[i]).fields[0];
+            results[i] = value.equals(missingValue) ? null : value;
+        }
+        return results;
+    }
+
     @Before
     public void setUp() throws Exception {
         valueFieldType = new LegacyLongFieldMapper.LongFieldType();
@@ -249,4 +269,60 @@ public class LuceneOrderedDocCollectorTest extends RandomizedTest {
         // returns null which leads to reuse of old query without paging optimization
         assertNull(nextPageQuery);
     }
+
+    @Test
+    public void testCutoffQueryExcludesDocsSortingAfterTheCutoff() throws Exception {
+        Directory index = createLuceneIndex();
+        IndexReader reader = DirectoryReader.open(index);
+
+        // 1  2  null null
+        //    ^
+        assertThat(cutoffQuery(reader, 2L, false, null), is(new Long[]{1L, 2L}));
+        // null null 1  2
+        //           ^
+        assertThat(cutoffQuery(reader, 1L, false, true), is(new Long[]{null, null, 1L}));
+        // null null 2  1
+        //           ^
+        assertThat(cutoffQuery(reader, 2L, true, null), is(new Long[]{null, null, 2L}));
+        // 2  1  null null
+        // ^
+        assertThat(cutoffQuery(reader, 2L, true, false), is(new Long[]{2L}));
+
+        reader.close();
+    }
+
+    @Test
+    public void testCutoffQueryWithMissingValueIsNull() throws Exception {
+        OrderBy orderBy = new OrderBy(Collections.<Symbol>singletonList(REFERENCE), new boolean[]{false}, new Boolean[]{null});
+        Object missingValue = LuceneMissingValue.missingValue(orderBy, 0);
+        assertNull(LuceneOrderedDocCollector.cutoffQuery(
+            missingValue, orderBy, missingValue, name -> valueFieldType, mock(QueryShardContext.class)));
+    }
+
+    @Test
+    public void testTopNCutoffIsTheNthValueOfAllOfferedDocs() throws Exception {
+        TopNCutoff topNCutoff = new TopNCutoff(3, false);
+        topNCutoff.offer(new FieldDoc[]{
+            new FieldDoc(0, 0, new Object[]{1L}),
+            new FieldDoc(1, 0, new Object[]{5L})
+        });
+        assertNull(topNCutoff.cutoff());
+
+        topNCutoff.offer(new FieldDoc[]{
+            new FieldDoc(0, 0, new Object[]{2L}),
+            new FieldDoc(1, 0, new Object[]{3L}),
+            new FieldDoc(2, 0, new Object[]{4L})
+        });
+        assertThat(topNCutoff.cutoff().fields[0], is((Object) 3L));
+
+        topNCutoff = new TopNCutoff(2, true);
+        topNCutoff.offer(new FieldDoc[]{
+            new FieldDoc(0, 0, new Object[]{5L}),
+            new FieldDoc(1, 0, new Object[]{1L})
+        });
+        topNCutoff.offer(new FieldDoc[]{
+            new FieldDoc(0, 0, new Object[]{3L})
+        });
+        assertThat(topNCutoff.cutoff().fields[0], is((Object) 3L));
+    }
 }
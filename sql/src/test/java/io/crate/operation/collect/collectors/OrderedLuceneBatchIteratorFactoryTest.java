@@ -150,7 +150,8 @@ public class OrderedLuceneBatchIteratorFactoryTest {
             orderBy,
             new Sort(new SortedNumericSortField(columnName, SortField.Type.LONG, reverseFlags[0])),
             expressions,
-            expressions
+            expressions,
+            null
         );
     }
 }
@@ -0,0 +1,123 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.operation.collect.files;
+
+import io.crate.test.integration.CrateUnitTest;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+
+public class CsvLineParserTest extends CrateUnitTest {
+
+    private static CsvLineParser parser(String header) {
+        CsvLineParser parser = new CsvLineParser();
+        parser.parseHeader(header);
+        return parser;
+    }
+
+    @Test
+    public void testParseUnquotedValues() throws Exception {
+        Map<String, Object> row = parser("id,name,quote").parse("1,Arthur,Don't panic");
+        assertThat(new ArrayList<>(row.keySet()), contains("id", "name", "quote"));
+        assertThat(new ArrayList<>(row.values()), contains("1", "Arthur", "Don't panic"));
+    }
+
+    @Test
+    public void testKeysAreInHeaderOrder() throws Exception {
+        Map<String, Object> row = parser("z,a,m,b").parse("1,2,3,4");
+        assertThat(new ArrayList<>(row.keySet()), contains("z", "a", "m", "b"));
+    }
+
+    @Test
+    public void testParseQuotedValues() throws Exception {
+        Map<String, Object> row = parser("id,quote").parse("\"1\",\"Ford, you're turning into a penguin.\"");
+        assertThat(row.get("id"), is("1"));
+        assertThat(row.get("quote"), is("Ford, you're turning into a penguin."));
+    }
+
+    @Test
+    public void testParseEscapedQuotes() throws Exception {
+        Map<String, Object> row = parser("id,quote").parse("1,\"He said \"\"Don't panic\"\".\"");
+        assertThat(row.get("quote"), is("He said \"Don't panic\"."));
+    }
+
+    @Test
+    public void testParseEmbeddedNewline() throws Exception {
+        Map<String, Object> row = parser("id,quote").parse("1,\"first line\nsecond line\"");
+        assertThat(row.get("quote"), is("first line\nsecond line"));
+    }
+
+    @Test
+    public void testEmptyUnquotedValuesAreMissing() throws Exception {
+        Map<String, Object> row = parser("id,name,quote").parse("1,,\"\"");
+        assertThat(new ArrayList<>(row.keySet()), contains("id", "quote"));
+        assertThat(row.get("quote"), is(""));
+    }
+
+    @Test
+    public void testLessValuesThanColumns() throws Exception {
+        Map<String, Object> row = parser("id,name,quote").parse("1,Arthur");
+        assertThat(new ArrayList<>(row.keySet()), contains("id", "name"));
+    }
+
+    @Test
+    public void testMoreValuesThanColumns() throws Exception {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("Number of values (3) exceeds the number of columns in the CSV header (2)");
+        parser("id,name").parse("1,Arthur,Dent");
+    }
+
+    @Test
+    public void testUnterminatedQuotedField() throws Exception {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("Quoted field isn't terminated");
+        parser("id,name").parse("1,\"Arthur");
+    }
+
+    @Test
+    public void testCharacterAfterQuotedField() throws Exception {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("Unexpected character 'x' after quoted field at position 10");
+        parser("id,name").parse("1,\"Arthur\"x");
+    }
+
+    @Test
+    public void testEmptyColumnNameInHeader() throws Exception {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("Column names in the CSV header must not be empty");
+        parser("id,,name");
+    }
+
+    @Test
+    public void testEndsQuotedTracksQuotesAcrossLines() throws Exception {
+        assertThat(CsvLineParser.endsQuoted("1,Arthur", false), is(false));
+        assertThat(CsvLineParser.endsQuoted("1,\"first line", false), is(true));
+        assertThat(CsvLineParser.endsQuoted("with \"\"escaped\"\" quotes", true), is(true));
+        assertThat(CsvLineParser.endsQuoted("", true), is(true));
+        assertThat(CsvLineParser.endsQuoted("last line\",2", true), is(false));
+    }
+}
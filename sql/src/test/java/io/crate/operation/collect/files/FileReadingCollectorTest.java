@@ -34,10 +34,12 @@ import io.crate.metadata.*;
 import io.crate.operation.InputFactory;
 import io.crate.operation.collect.BatchIteratorCollectorBridge;
 import io.crate.operation.reference.file.FileLineReferenceResolver;
+import io.crate.planner.node.dql.FileUriCollectPhase;
 import io.crate.test.integration.CrateUnitTest;
 import io.crate.testing.TestingBatchConsumer;
 import io.crate.testing.TestingHelpers;
 import io.crate.types.DataTypes;
+import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
 import org.junit.BeforeClass;
@@ -53,6 +55,9 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.zip.GZIPOutputStream;
 
 import static io.crate.testing.TestingHelpers.createReference;
@@ -68,6 +73,7 @@ public class FileReadingCollectorTest extends CrateUnitTest {
     private static File tmpFileGz;
     private static File tmpFileEmptyLine;
     private InputFactory inputFactory;
+    private ExecutorService executor;
 
     @BeforeClass
     public static void setUpClass() throws Exception {
@@ -101,6 +107,13 @@ public class FileReadingCollectorTest extends CrateUnitTest {
             ImmutableMap.<String, FunctionResolver>of()
         );
         inputFactory = new InputFactory(functions);
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @After
+    public void shutdownExecutor() throws Exception {
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
     }
 
     @AfterClass
@@ -268,7 +281,9 @@ public class FileReadingCollectorTest extends CrateUnitTest {
                 })),
             false,
             1,
-            0
+            0,
+            FileUriCollectPhase.InputFormat.JSON,
+            executor
         );
     }
 
@@ -28,10 +28,12 @@ import io.crate.data.Input;
 import io.crate.metadata.*;
 import io.crate.operation.InputFactory;
 import io.crate.operation.reference.file.FileLineReferenceResolver;
+import io.crate.planner.node.dql.FileUriCollectPhase;
 import io.crate.test.integration.CrateUnitTest;
 import io.crate.testing.BatchIteratorTester;
 import io.crate.types.DataTypes;
 import org.apache.lucene.util.BytesRef;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -40,10 +42,14 @@ import java.io.FileOutputStream;
 import java.io.OutputStreamWriter;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 
 import static io.crate.testing.TestingHelpers.createReference;
@@ -52,6 +58,7 @@ public class FileReadingIteratorTest extends CrateUnitTest {
 
     private InputFactory inputFactory;
     private Path tempFilePath;
+    private ExecutorService executor;
 
     @Before
     public void prepare() throws Exception {
@@ -60,6 +67,7 @@ public class FileReadingIteratorTest extends CrateUnitTest {
             ImmutableMap.<String, FunctionResolver>of()
         );
         inputFactory = new InputFactory(functions);
+        executor = Executors.newCachedThreadPool();
 
         tempFilePath = createTempFile();
         File tmpFile = tempFilePath.toFile();
@@ -69,11 +77,18 @@ public class FileReadingIteratorTest extends CrateUnitTest {
         }
     }
 
+    @After
+    public void shutdownExecutor() throws Exception {
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
     @Test
     public void testIteratorContract() throws Exception {
         String fileUri = tempFilePath.toUri().toString();
         Supplier<BatchIterator> batchIteratorSupplier = () -> createBatchIterator(
-            Collections.singletonList(fileUri), null
+            Collections.singletonList(fileUri), null, FileUriCollectPhase.InputFormat.JSON,
+            createReference("_raw", DataTypes.STRING)
         );
 
         byte[] firstLine = "{\"name\": \"Arthur\", \"id\": 4, \"details\": {\"age\": 38}}".getBytes(StandardCharsets.UTF_8);
@@ -86,11 +101,64 @@ public class FileReadingIteratorTest extends CrateUnitTest {
         tester.verifyResultAndEdgeCaseBehaviour(expectedResult);
     }
 
-    private BatchIterator createBatchIterator(Collection<String> fileUris, String compression) {
-        Reference raw = createReference("_raw", DataTypes.STRING);
+    @Test
+    public void testCsvRecordsAreMappedToHeaderColumns() throws Exception {
+        Path csvFilePath = createTempFile();
+        try (OutputStreamWriter writer = new OutputStreamWriter(
+            new FileOutputStream(csvFilePath.toFile()), StandardCharsets.UTF_8)) {
+            writer.write("id,name,details\n");
+            writer.write("4,Arthur,\n");
+            writer.write("5,\"Trillian, \"\"Tricia\"\"\nMcMillan\",\"{\"\"age\"\": 33}\"\n");
+        }
+        String fileUri = csvFilePath.toUri().toString();
+        Supplier<BatchIterator> batchIteratorSupplier = () -> createBatchIterator(
+            Collections.singletonList(fileUri), null, FileUriCollectPhase.InputFormat.CSV,
+            createReference("id", DataTypes.STRING),
+            createReference("name", DataTypes.STRING),
+            createReference("details", DataTypes.STRING)
+        );
+
+        List<Object[]> expectedResult = Arrays.asList(
+            new Object[]{new BytesRef("4"), new BytesRef("Arthur"), null},
+            new Object[]{new BytesRef("5"), new BytesRef("Trillian, \"Tricia\"\nMcMillan"), new BytesRef("{\"age\": 33}")});
+        BatchIteratorTester tester = new BatchIteratorTester(batchIteratorSupplier);
+        tester.verifyResultAndEdgeCaseBehaviour(expectedResult);
+    }
+
+    @Test
+    public void testEmptyLinesWithinQuotedCsvValueAreKept() throws Exception {
+        Path csvFilePath = createTempFile();
+        try (OutputStreamWriter writer = new OutputStreamWriter(
+            new FileOutputStream(csvFilePath.toFile()), StandardCharsets.UTF_8)) {
+            writer.write("id,name\n");
+            writer.write("4,\"Arthur\n\nDent\"\n");
+            writer.write("\n");
+            writer.write("5,Trillian\n");
+        }
+        String fileUri = csvFilePath.toUri().toString();
+        Supplier<BatchIterator> batchIteratorSupplier = () -> createBatchIterator(
+            Collections.singletonList(fileUri), null, FileUriCollectPhase.InputFormat.CSV,
+            createReference("id", DataTypes.STRING),
+            createReference("name", DataTypes.STRING)
+        );
+
+        List<Object[]> expectedResult = Arrays.asList(
+            new Object[]{new BytesRef("4"), new BytesRef("Arthur\n\nDent")},
+            new Object[]{new BytesRef("5"), new BytesRef("Trillian")});
+        BatchIteratorTester tester = new BatchIteratorTester(batchIteratorSupplier);
+        tester.verifyResultAndEdgeCaseBehaviour(expectedResult);
+    }
+
+    private BatchIterator createBatchIterator(Collection<String> fileUris,
+                                              String compression,
+                                              FileUriCollectPhase.InputFormat inputFormat,
+                                              Reference... references) {
         InputFactory.Context<LineCollectorExpression<?>> ctx =
             inputFactory.ctxForRefs(FileLineReferenceResolver::getImplementation);
-        List<Input<?>> inputs = Collections.singletonList(ctx.add(raw));
+        List<Input<?>> inputs = new ArrayList<>(references.length);
+        for (Reference reference : references) {
+            inputs.add(ctx.add(reference));
+        }
         return FileReadingIterator.newInstance(
             fileUris,
             inputs,
@@ -100,7 +168,9 @@ public class FileReadingIteratorTest extends CrateUnitTest {
                 LocalFsFileInputFactory.NAME, new LocalFsFileInputFactory()),
             false,
             1,
-            0
+            0,
+            inputFormat,
+            executor
         );
     }
 }
@@ -0,0 +1,84 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.operation.collect.files;
+
+import io.crate.test.integration.CrateUnitTest;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+
+public class LineRangeInputStreamTest extends CrateUnitTest {
+
+    private static final byte[] CONTENT = "{\"id\": 1}\n{\"id\": 22}\n{\"id\": 333}\n".getBytes(StandardCharsets.UTF_8);
+
+    private static List<String> readLines(long start, long end) throws IOException {
+        InputStream in = new ByteArrayInputStream(CONTENT);
+        long skipped = in.skip(Math.max(0, start - 1));
+        assert skipped == Math.max(0, start - 1) : "must skip to the start of the range";
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(
+            new InputStreamReader(new LineRangeInputStream(in, start, end), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+            }
+        }
+        return lines;
+    }
+
+    @Test
+    public void testRangeAlignedToLineBoundaries() throws Exception {
+        assertThat(readLines(0, 10), contains("{\"id\": 1}"));
+        assertThat(readLines(10, 21), contains("{\"id\": 22}"));
+        assertThat(readLines(21, CONTENT.length), contains("{\"id\": 333}"));
+    }
+
+    @Test
+    public void testRangeWithinLineReadsLinesStartingInRange() throws Exception {
+        assertThat(readLines(0, 5), contains("{\"id\": 1}"));
+        assertThat(readLines(5, 11), contains("{\"id\": 22}"));
+        assertThat(readLines(11, 15), empty());
+        assertThat(readLines(15, CONTENT.length), contains("{\"id\": 333}"));
+    }
+
+    @Test
+    public void testAdjacentRangesReturnEachLineOnce() throws Exception {
+        for (int numRanges = 1; numRanges <= CONTENT.length; numRanges++) {
+            List<String> lines = new ArrayList<>();
+            for (int i = 0; i < numRanges; i++) {
+                lines.addAll(readLines(CONTENT.length * i / numRanges, CONTENT.length * (i + 1) / numRanges));
+            }
+            assertThat(lines, contains("{\"id\": 1}", "{\"id\": 22}", "{\"id\": 333}"));
+        }
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.operation.collect.files;
+
+import io.crate.test.integration.CrateUnitTest;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPOutputStream;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+
+public class ReadAheadInputStreamTest extends CrateUnitTest {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @After
+    public void shutdownExecutor() throws Exception {
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testReadsDecompressedStreamAhead() throws Exception {
+        byte[] data = new byte[100_000];
+        random().nextBytes(data);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(data);
+        }
+
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        try (InputStream in = new ReadAheadInputStream(
+            new ByteArrayInputStream(compressed.toByteArray()), true, executor, 1000, 3)) {
+            byte[] buffer = new byte[777];
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                result.write(buffer, 0, n);
+            }
+            assertThat(in.read(), is(-1));
+        }
+        assertThat(result.toByteArray(), is(data));
+    }
+
+    @Test
+    public void testFailureIsRethrownAfterPreviouslyReadBytes() throws Exception {
+        InputStream failing = new InputStream() {
+            private int count = 0;
+
+            @Override
+            public int read() throws IOException {
+                if (count++ < 3) {
+                    return 'x';
+                }
+                throw new SocketTimeoutException("timeout");
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                b[off] = (byte) read();
+                return 1;
+            }
+        };
+        InputStream in = new ReadAheadInputStream(failing, false, executor, 10, 2);
+        assertThat(in.read(), is((int) 'x'));
+        assertThat(in.read(), is((int) 'x'));
+        assertThat(in.read(), is((int) 'x'));
+
+        expectedException.expect(SocketTimeoutException.class);
+        in.read();
+    }
+
+    @Test
+    public void testReadingTaskDoesNotBlockTheExecutorIfTheConsumerFallsBehind() throws Exception {
+        ExecutorService singleThreadExecutor = Executors.newSingleThreadExecutor();
+        try {
+            byte[] data = new byte[1000];
+            random().nextBytes(data);
+            // nothing is consumed from the first stream, so its reading task has to give up the only thread
+            InputStream behind = new ReadAheadInputStream(new ByteArrayInputStream(data), false, singleThreadExecutor, 10, 2);
+            InputStream in = new ReadAheadInputStream(new ByteArrayInputStream(data), false, singleThreadExecutor, 10, 2);
+
+            assertThat(readFully(in), is(data));
+            assertThat(readFully(behind), is(data));
+            behind.close();
+            in.close();
+        } finally {
+            singleThreadExecutor.shutdown();
+            singleThreadExecutor.awaitTermination(5, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void testGzipHeaderIsReadByTheExecutor() throws Exception {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(new byte[]{1, 2, 3});
+        }
+        Thread currentThread = Thread.currentThread();
+        AtomicReference<Thread> readingThread = new AtomicReference<>();
+        InputStream source = new ByteArrayInputStream(compressed.toByteArray()) {
+            @Override
+            public synchronized int read() {
+                readingThread.compareAndSet(null, Thread.currentThread());
+                return super.read();
+            }
+
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                readingThread.compareAndSet(null, Thread.currentThread());
+                return super.read(b, off, len);
+            }
+        };
+        try (InputStream in = new ReadAheadInputStream(source, true, executor, 10, 2)) {
+            assertThat(readFully(in), is(new byte[]{1, 2, 3}));
+        }
+        assertThat(readingThread.get(), notNullValue());
+        assertThat(readingThread.get(), not(currentThread));
+    }
+
+    private static byte[] readFully(InputStream in) throws IOException {
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        byte[] buffer = new byte[7];
+        int n;
+        while ((n = in.read(buffer)) != -1) {
+            result.write(buffer, 0, n);
+        }
+        return result.toByteArray();
+    }
+}
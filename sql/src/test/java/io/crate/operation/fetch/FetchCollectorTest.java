@@ -0,0 +1,44 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.operation.fetch;
+
+import io.crate.test.integration.CrateUnitTest;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+public class FetchCollectorTest extends CrateUnitTest {
+
+    @Test
+    public void testPositionsInDocIdOrder() throws Exception {
+        int[] positions = FetchCollector.positionsInDocIdOrder(new int[]{42, 3, 17, 0, 3});
+        assertThat(positions, is(new int[]{3, 1, 4, 2, 0}));
+    }
+
+    @Test
+    public void testPositionsOfSortedDocIdsAreNull() throws Exception {
+        assertThat(FetchCollector.positionsInDocIdOrder(new int[]{1, 2, 2, 10}), nullValue());
+        assertThat(FetchCollector.positionsInDocIdOrder(new int[0]), nullValue());
+    }
+}
@@ -25,16 +25,29 @@ package io.crate.operation.fetch;
 import com.google.common.collect.Iterables;
 import com.google.common.util.concurrent.MoreExecutors;
 import io.crate.jobs.JobContextService;
+import io.crate.lucene.FieldTypeLookup;
+import io.crate.metadata.ColumnIdent;
+import io.crate.metadata.DocReferences;
+import io.crate.metadata.Reference;
+import io.crate.metadata.ReferenceIdent;
+import io.crate.metadata.RowGranularity;
 import io.crate.operation.collect.stats.JobsLogs;
 import io.crate.test.integration.CrateDummyClusterServiceUnitTest;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
 import org.elasticsearch.common.breaker.NoopCircuitBreaker;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.mapper.MappedFieldType;
 import org.junit.Test;
 
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 
+import static io.crate.analyze.TableDefinitions.USER_TABLE_IDENT;
 import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsSame.sameInstance;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 public class NodeFetchOperationTest extends CrateDummyClusterServiceUnitTest {
 
@@ -51,4 +64,40 @@ public class NodeFetchOperationTest extends CrateDummyClusterServiceUnitTest {
 
         assertThat(Iterables.size(jobsLogs.activeOperations()), is(0));
     }
+
+    private static Reference sourceLookup(String column, DataType type) {
+        return DocReferences.toSourceLookup(
+            new Reference(new ReferenceIdent(USER_TABLE_IDENT, new ColumnIdent(column)), RowGranularity.DOC, type));
+    }
+
+    private static FieldTypeLookup fieldTypeLookup(boolean hasDocValues) {
+        MappedFieldType fieldType = mock(MappedFieldType.class);
+        when(fieldType.hasDocValues()).thenReturn(hasDocValues);
+        return columnName -> columnName.equals("name") ? fieldType : null;
+    }
+
+    @Test
+    public void testSourceLookupOfColumnWithDocValuesIsRewrittenToDocValuesLookup() throws Exception {
+        Reference reference = sourceLookup("name", DataTypes.STRING);
+        Reference rewritten = NodeFetchOperation.toDocValuesLookupIfPossible(reference, fieldTypeLookup(true));
+        assertThat(rewritten.ident().columnIdent().fqn(), is("name"));
+    }
+
+    @Test
+    public void testSourceLookupOfColumnWithoutDocValuesIsKept() throws Exception {
+        Reference reference = sourceLookup("name", DataTypes.STRING);
+        assertThat(NodeFetchOperation.toDocValuesLookupIfPossible(reference, fieldTypeLookup(false)),
+            sameInstance(reference));
+
+        reference = sourceLookup("other", DataTypes.STRING);
+        assertThat(NodeFetchOperation.toDocValuesLookupIfPossible(reference, fieldTypeLookup(true)),
+            sameInstance(reference));
+    }
+
+    @Test
+    public void testSourceLookupOfObjectColumnIsKept() throws Exception {
+        Reference reference = sourceLookup("name", DataTypes.OBJECT);
+        assertThat(NodeFetchOperation.toDocValuesLookupIfPossible(reference, fieldTypeLookup(true)),
+            sameInstance(reference));
+    }
 }
@@ -139,6 +139,33 @@ public class SortedPagingIteratorTest extends CrateUnitTest {
         assertThat(rows, is(replayedRows));
     }
 
+    @Test
+    public void testManyBucketsAreMergedCorrectly() throws Exception {
+        SortedPagingIterator<Void, Row> pagingIterator = new SortedPagingIterator<>(ORDERING, randomBoolean());
+        int numBuckets = 37;
+        List<Bucket> buckets = new ArrayList<>(numBuckets);
+        for (int i = 0; i < numBuckets; i++) {
+            buckets.add(new ArrayBucket(new Object[][]{
+                new Object[]{i},
+                new Object[]{i + numBuckets},
+                new Object[]{i + 2 * numBuckets}
+            }));
+        }
+        pagingIterator.merge(numberedBuckets(buckets));
+
+        List<Object> rows = new ArrayList<>();
+        consumeSingleColumnRows(pagingIterator, rows);
+        // stops once the bucket with the smallest last row is exhausted
+        assertThat(rows.size(), is(2 * numBuckets + 1));
+
+        pagingIterator.finish();
+        consumeSingleColumnRows(pagingIterator, rows);
+        assertThat(rows.size(), is(3 * numBuckets));
+        for (int i = 0; i < rows.size(); i++) {
+            assertThat(rows.get(i), is((Object) i));
+        }
+    }
+
     private Iterable<? extends KeyIterable<Void, Row>> numberedBuckets(List<Bucket> buckets) {
         return Iterables.transform(buckets, new Function<Bucket, KeyIterable<Void, Row>>() {
 
@@ -0,0 +1,119 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+package io.crate.operation.projectors;
+
+import io.crate.data.BatchIterator;
+import io.crate.data.Row;
+import io.crate.data.Row1;
+import io.crate.data.RowsBatchIterator;
+import io.crate.executor.transport.ShardDeleteRequest;
+import io.crate.executor.transport.ShardResponse;
+import io.crate.operation.NodeJobsCounter;
+import io.crate.operation.collect.InputCollectExpression;
+import io.crate.test.integration.CrateUnitTest;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.Version;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.transport.LocalTransportAddress;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.index.shard.ShardId;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ShardDMLExecutorTest extends CrateUnitTest {
+
+    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
+
+    @After
+    public void shutdownScheduler() throws Exception {
+        scheduler.shutdown();
+        scheduler.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testRetriedRequestShrinksTheConcurrencyLimitOnlyOnce() throws Exception {
+        String nodeId = "n1";
+        ClusterService clusterService = mock(ClusterService.class);
+        when(clusterService.localNode()).thenReturn(
+            new DiscoveryNode(nodeId, LocalTransportAddress.buildUnique(), Version.CURRENT));
+
+        NodeJobsCounter nodeJobsCounter = new NodeJobsCounter();
+        long responseLatency = TimeUnit.MILLISECONDS.toNanos(1);
+        for (int i = 0; i < 100; i++) {
+            nodeJobsCounter.onResponse(nodeId, responseLatency);
+        }
+        long initialLimit = nodeJobsCounter.getConcurrencyLimitForNode(nodeId);
+
+        ShardDeleteRequest.Builder builder = new ShardDeleteRequest.Builder(TimeValue.timeValueSeconds(10), UUID.randomUUID());
+        ShardId shardId = new ShardId("t", UUID.randomUUID().toString(), 0);
+        AtomicInteger attempts = new AtomicInteger();
+        AtomicLong limitAfterRejection = new AtomicLong();
+        ShardDMLExecutor<ShardDeleteRequest, ShardDeleteRequest.Item> executor = new ShardDMLExecutor<>(
+            10,
+            scheduler,
+            new InputCollectExpression(0),
+            clusterService,
+            nodeJobsCounter,
+            () -> builder.newRequest(shardId, null),
+            ShardDeleteRequest.Item::new,
+            (request, listener) -> {
+                if (attempts.incrementAndGet() == 1) {
+                    // a rejection which takes much longer than the usual responses of the node
+                    try {
+                        Thread.sleep(50);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    listener.onFailure(new EsRejectedExecutionException("rejected"));
+                } else {
+                    limitAfterRejection.set(nodeJobsCounter.getConcurrencyLimitForNode(nodeId));
+                    ShardResponse response = new ShardResponse();
+                    response.add(0);
+                    listener.onResponse(response);
+                }
+            }
+        );
+
+        BatchIterator batchIterator = RowsBatchIterator.newInstance(new Row1(new BytesRef("1")));
+        Iterable<Row> result = executor.apply(batchIterator).get(5, TimeUnit.SECONDS);
+
+        assertThat(result.iterator().next().get(0), is(1L));
+        assertThat(attempts.get(), is(2));
+        assertThat(limitAfterRejection.get(), lessThan(initialLimit));
+        // the fast response to the retry must not be mistaken for a slowdown which shrinks the limit again
+        assertThat(nodeJobsCounter.getConcurrencyLimitForNode(nodeId), is(limitAfterRejection.get()));
+    }
+}
@@ -82,6 +82,55 @@ public class FetchBatchAccumulatorTest {
         assertThat(result.next().get(0), is(4));
     }
 
+    @Test
+    public void testNextBatchCanBeAccumulatedBeforeResultOfPreviousBatchIsConsumed() throws Exception {
+        FetchBatchAccumulator fetchBatchAccumulator = new FetchBatchAccumulator(
+            fetchOperation,
+            getFunctions(),
+            buildOutputSymbols(),
+            buildFetchProjectorContext(),
+            2
+        );
+        fetchBatchAccumulator.onItem(new Row1(1L));
+        fetchBatchAccumulator.onItem(new Row1(2L));
+        CompletableFuture<Iterator<? extends Row>> firstBatch = fetchBatchAccumulator.processBatch(false);
+
+        fetchBatchAccumulator.onItem(new Row1(3L));
+        fetchBatchAccumulator.onItem(new Row1(4L));
+        CompletableFuture<Iterator<? extends Row>> secondBatch = fetchBatchAccumulator.processBatch(false);
+
+        Iterator<? extends Row> result = firstBatch.get(10, TimeUnit.SECONDS);
+        assertThat(result.next().get(0), is(1));
+        assertThat(result.next().get(0), is(2));
+        assertThat(result.hasNext(), is(false));
+
+        result = secondBatch.get(10, TimeUnit.SECONDS);
+        assertThat(result.next().get(0), is(3));
+        assertThat(result.next().get(0), is(4));
+        assertThat(result.hasNext(), is(false));
+        assertThat(fetchOperation.numFetches, is(2));
+    }
+
+    @Test
+    public void testBatchSizeGrowsUpToFetchSizeIfFetchesAreFast() throws Exception {
+        FetchBatchAccumulator fetchBatchAccumulator = new FetchBatchAccumulator(
+            fetchOperation,
+            getFunctions(),
+            buildOutputSymbols(),
+            buildFetchProjectorContext(),
+            3000
+        );
+        assertThat(fetchBatchAccumulator.batchSize(), is(FetchBatchAccumulator.INITIAL_BATCH_SIZE));
+
+        fetchBatchAccumulator.onItem(new Row1(1L));
+        fetchBatchAccumulator.processBatch(false).get(10, TimeUnit.SECONDS);
+        assertThat(fetchBatchAccumulator.batchSize(), is(FetchBatchAccumulator.INITIAL_BATCH_SIZE * 2));
+
+        fetchBatchAccumulator.onItem(new Row1(2L));
+        fetchBatchAccumulator.processBatch(false).get(10, TimeUnit.SECONDS);
+        assertThat(fetchBatchAccumulator.batchSize(), is(3000));
+    }
+
     private static List<Symbol> buildOutputSymbols() {
         return Collections.singletonList(new FetchReference(
             new InputColumn(0),
@@ -0,0 +1,95 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.operation.reference.doc.lucene;
+
+import io.crate.test.integration.CrateUnitTest;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+public class PartialSourceLookupTest extends CrateUnitTest {
+
+    private static final String SOURCE = "{" +
+        "\"id\": 1," +
+        "\"payload\": {\"blob\": \"" + String.join("", Collections.nCopies(100, "x")) + "\"}," +
+        "\"o\": {\"a\": {\"b\": 10, \"c\": \"foo\"}, \"d\": true}," +
+        "\"arr\": [{\"x\": 1}, {\"y\": 2}, {\"x\": 3}, 4]" +
+        "}";
+
+    private final PartialSourceLookup lookup = new PartialSourceLookup();
+
+    @Test
+    public void testValuesOfRegisteredPathsAreExtracted() throws Exception {
+        int idIdx = lookup.register("id");
+        int bIdx = lookup.register("o.a.b");
+        int aIdx = lookup.register("o.a");
+        int missingIdx = lookup.register("o.missing");
+        int scalarChildIdx = lookup.register("id.x");
+        lookup.setSource(new BytesArray(SOURCE));
+
+        assertThat(lookup.get(idIdx), is((Object) 1));
+        assertThat(lookup.get(bIdx), is((Object) 10));
+        Map<String, Object> a = (Map<String, Object>) lookup.get(aIdx);
+        assertThat(a.get("c"), is((Object) "foo"));
+        assertThat(lookup.get(missingIdx), nullValue());
+        assertThat(lookup.get(scalarChildIdx), nullValue());
+    }
+
+    @Test
+    public void testPathThroughArrayResultsInListOfValues() throws Exception {
+        int xIdx = lookup.register("arr.x");
+        lookup.setSource(new BytesArray(SOURCE));
+
+        assertThat(lookup.get(xIdx), is((Object) Arrays.asList(1, 3)));
+    }
+
+    @Test
+    public void testSameIndexForSamePath() throws Exception {
+        assertThat(lookup.register("o.d"), is(lookup.register("o.d")));
+    }
+
+    @Test
+    public void testParsingStopsOnceAllValuesAreFound() throws Exception {
+        int idIdx = lookup.register("id");
+        // the remaining source is invalid; it must not be parsed
+        lookup.setSource(new BytesArray("{\"id\": 1, \"o\": {\"a\": ]"));
+
+        assertThat(lookup.get(idIdx), is((Object) 1));
+    }
+
+    @Test
+    public void testNewSourceIsParsedAgain() throws Exception {
+        int idIdx = lookup.register("id");
+        lookup.setSource(new BytesArray("{\"id\": 1}"));
+        assertThat(lookup.get(idIdx), is((Object) 1));
+
+        lookup.setSource(new BytesArray("{\"name\": \"foo\"}"));
+        assertThat(lookup.get(idIdx), nullValue());
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.rest.action;
+
+import io.crate.action.sql.SQLOperations;
+import io.crate.operation.user.User;
+import io.crate.test.integration.CrateUnitTest;
+import org.elasticsearch.common.unit.TimeValue;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+public class HttpCursorsTest extends CrateUnitTest {
+
+    private static final User ARTHUR = new User("arthur", Collections.emptySet());
+
+    private final HttpCursors cursors = new HttpCursors();
+
+    private static HttpCursors.Cursor newCursor(SQLOperations.Session session, TimeValue keepAlive) {
+        return new HttpCursors.Cursor("c1", session, ARTHUR, Collections.emptyList(), 10, keepAlive);
+    }
+
+    @Test
+    public void testAcquireGrantsExclusiveAccess() throws Exception {
+        HttpCursors.Cursor cursor = newCursor(mock(SQLOperations.Session.class), TimeValue.timeValueMinutes(1));
+        cursors.register(cursor);
+
+        assertThat(cursors.acquire("c1", ARTHUR), is(cursor));
+        assertThat(cursors.acquire("c1", ARTHUR), nullValue());
+
+        cursors.register(cursor);
+        assertThat(cursors.acquire("c1", ARTHUR), is(cursor));
+    }
+
+    @Test
+    public void testCursorCanOnlyBeAcquiredByItsUser() throws Exception {
+        HttpCursors.Cursor cursor = newCursor(mock(SQLOperations.Session.class), TimeValue.timeValueMinutes(1));
+        cursors.register(cursor);
+
+        assertThat(cursors.acquire("c1", new User("ford", Collections.emptySet())), nullValue());
+        assertThat(cursors.acquire("c1", null), nullValue());
+        assertThat(cursors.acquire("c1", ARTHUR), is(cursor));
+    }
+
+    @Test
+    public void testExpiredCursorsAreClosed() throws Exception {
+        SQLOperations.Session session = mock(SQLOperations.Session.class);
+        cursors.register(newCursor(session, TimeValue.timeValueMinutes(1)));
+
+        cursors.closeExpired(System.nanoTime());
+        verify(session, never()).close();
+
+        cursors.closeExpired(System.nanoTime() + TimeValue.timeValueMinutes(2).nanos());
+        verify(session).close();
+        assertThat(cursors.acquire("c1", ARTHUR), nullValue());
+    }
+
+    @Test
+    public void testAcquireOfExpiredCursorClosesIt() throws Exception {
+        SQLOperations.Session session = mock(SQLOperations.Session.class);
+        cursors.register(newCursor(session, TimeValue.timeValueNanos(0)));
+
+        Thread.sleep(1);
+        assertThat(cursors.acquire("c1", ARTHUR), nullValue());
+        verify(session).close();
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.rest.action;
+
+import io.crate.exceptions.SQLParseException;
+import io.crate.test.integration.CrateUnitTest;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+public class NDJsonRowChunksTest extends CrateUnitTest {
+
+    @Test
+    public void testRowsAreSplitIntoChunksOfMaxSize() throws Exception {
+        NDJsonRowChunks chunks = new NDJsonRowChunks(new BytesArray(
+            "{\"id\": 1, \"name\": \"foo\"}\n" +
+            "{\"name\": \"bar\", \"id\": 2}\n" +
+            "\n" +
+            "{\"id\": 3, \"name\": \"baz\"}"), 2);
+
+        NDJsonRowChunks.Chunk chunk = chunks.next();
+        assertThat(chunk.columns(), contains("id", "name"));
+        assertThat(chunk.rows().size(), is(2));
+        assertThat(chunk.rows().get(1), is(new Object[]{2, "bar"}));
+
+        chunk = chunks.next();
+        assertThat(chunk.columns(), contains("id", "name"));
+        assertThat(chunk.rows().size(), is(1));
+        assertThat(chunk.rows().get(0), is(new Object[]{3, "baz"}));
+
+        assertThat(chunks.next(), nullValue());
+    }
+
+    @Test
+    public void testRowWithDifferentColumnsStartsNewChunk() throws Exception {
+        NDJsonRowChunks chunks = new NDJsonRowChunks(new BytesArray(
+            "{\"id\": 1}\n" +
+            "{\"id\": 2, \"name\": \"bar\"}\n"), 10);
+
+        NDJsonRowChunks.Chunk chunk = chunks.next();
+        assertThat(chunk.columns(), contains("id"));
+        assertThat(chunk.rows().size(), is(1));
+
+        chunk = chunks.next();
+        assertThat(chunk.columns(), contains("id", "name"));
+        assertThat(chunk.rows().get(0), is(new Object[]{2, "bar"}));
+
+        assertThat(chunks.next(), nullValue());
+    }
+
+    @Test
+    public void testLineWithoutObjectFails() throws Exception {
+        NDJsonRowChunks chunks = new NDJsonRowChunks(new BytesArray("{\"id\": 1}\n[1, 2]\n"), 10);
+
+        expectedException.expect(SQLParseException.class);
+        expectedException.expectMessage("Line 2 doesn't contain a JSON object");
+        chunks.next();
+    }
+}
@@ -37,14 +37,21 @@ import io.crate.types.DataTypes;
 import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.common.breaker.NoopCircuitBreaker;
 import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.XContentType;
 import org.elasticsearch.common.xcontent.json.JsonXContent;
 import org.elasticsearch.rest.RestChannel;
+import org.elasticsearch.test.rest.FakeRestRequest;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -74,9 +81,14 @@ public class RestActionReceiversTest extends CrateUnitTest {
     }
 
     private static RestChannel newChannel() throws IOException {
+        return newChannel(Collections.emptyMap());
+    }
+
+    private static RestChannel newChannel(Map<String, String> headers) throws IOException {
         RestChannel channel = mock(RestChannel.class);
         XContentBuilder xContentBuilder = JsonXContent.contentBuilder();
         when(channel.newBuilder()).thenReturn(xContentBuilder);
+        when(channel.request()).thenReturn(new FakeRestRequest.Builder().withHeaders(headers).build());
         return channel;
     }
 
@@ -136,4 +148,38 @@ public class RestActionReceiversTest extends CrateUnitTest {
         String s = builder.build().string();
         assertEquals(s, "{\"results\":[{\"rowcount\":1},{\"rowcount\":2},{\"rowcount\":3}]}");
     }
+
+    @Test
+    public void testBinaryContentTypeFromAcceptHeader() throws Exception {
+        assertThat(ResultToXContentBuilder.binaryContentType(null), nullValue());
+        assertThat(ResultToXContentBuilder.binaryContentType("*/*"), nullValue());
+        assertThat(ResultToXContentBuilder.binaryContentType("application/json"), nullValue());
+        assertThat(ResultToXContentBuilder.binaryContentType("application/json, application/smile"), nullValue());
+        assertThat(ResultToXContentBuilder.binaryContentType("application/smile"), is(XContentType.SMILE));
+        assertThat(ResultToXContentBuilder.binaryContentType("text/html, application/cbor;q=0.9"), is(XContentType.CBOR));
+    }
+
+    @Test
+    public void testRestResultSetReceiverWithSmileAcceptHeader() throws Exception {
+        RestResultSetReceiver receiver = new RestResultSetReceiver(
+            newChannel(Collections.singletonMap("Accept", "application/smile")),
+            fields,
+            0L,
+            new RowAccounting(Symbols.extractTypes(fields), new RamAccountingContext("dummy", new NoopCircuitBreaker("dummy"))),
+            false
+        );
+        for (Row row : rows) {
+            receiver.setNextRow(row);
+        }
+        XContentBuilder builder = receiver.finishBuilder();
+        assertThat(builder.contentType(), is(XContentType.SMILE));
+
+        Map<String, Object> result = XContentHelper.convertToMap(builder.bytes(), false).v2();
+        assertThat(result.get("cols"), is(Arrays.asList("doc['col_a']", "doc['col_b']", "doc['col_c']")));
+        assertThat(result.get("rows"), is(Arrays.asList(
+            Arrays.asList("foo", 1, true),
+            Arrays.asList("bar", 2, false),
+            Arrays.asList("foobar", 3, null))));
+        assertThat(result.get("rowcount"), is(3));
+    }
 }
@@ -84,7 +84,8 @@ public class RestSQLActionTest extends CrateUnitTest {
             restController,
             sqlOperations,
             userManagerProvider,
-            circuitBreakerService
+            circuitBreakerService,
+            new HttpCursors()
         );
         RestRequest request = new FakeRestRequest.Builder()
             .withHeaders(Collections.emptyMap())
@@ -102,7 +103,8 @@ public class RestSQLActionTest extends CrateUnitTest {
             restController,
             sqlOperations,
             userManagerProvider,
-            circuitBreakerService
+            circuitBreakerService,
+            new HttpCursors()
         );
         RestRequest request = new FakeRestRequest.Builder()
             .withHeaders(Collections.emptyMap())
@@ -117,7 +119,8 @@ public class RestSQLActionTest extends CrateUnitTest {
             restController,
             sqlOperations,
             userManagerProvider,
-            circuitBreakerService
+            circuitBreakerService,
+            new HttpCursors()
         );
         RestRequest request = new FakeRestRequest.Builder()
             .withHeaders(Collections.singletonMap("X-User", "other"))